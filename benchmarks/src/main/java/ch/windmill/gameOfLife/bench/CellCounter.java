@@ -0,0 +1,27 @@
+package ch.windmill.gameOfLife.bench;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * This class provides a secondary result of a benchmark. Each operation adds the number of processed cells, JMH
+ * reports the counter as cells per time unit. The time per cell is the reciprocal of this value.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.OPERATIONS)
+public class CellCounter {
+    public long cells;
+    
+    /**
+     * Reset the counter before each iteration.
+     */
+    @Setup(Level.Iteration)
+    public void reset() {
+        cells = 0;
+    }
+}
@@ -0,0 +1,38 @@
+package ch.windmill.gameOfLife.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the evolve process of the engines. One operation is one generation, so the throughput is
+ * reported in generations per second. The secondary result "cells" is the number of evolved cells per second.
+ * <br>
+ * The world evolves during the whole trial, the density of the generation drifts away from the parameter. Each
+ * fork starts with the same generation, so the results of different runs are comparable.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class EngineBenchmark {
+    
+    /**
+     * Evolve one generation.
+     * @param state The world.
+     * @param counter The counter of evolved cells.
+     */
+    @Benchmark
+    public void evolve(final WorldState state, final CellCounter counter) {
+        state.world.startEngine();
+        counter.cells += state.world.getNumberOfCells();
+    }
+}
@@ -0,0 +1,71 @@
+package ch.windmill.gameOfLife.bench;
+
+import ch.windmill.gameOfLife.GenerationsRule;
+import ch.windmill.gameOfLife.GenerationsWorld;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the <code>gameOfLife.GenerationsEngine</code>. The sizes and the densities are the same as
+ * the parameters of the <code>EngineBenchmark</code>, so the cells per second of both benchmarks can be compared.
+ * The rule 23/3/2 is the rule of Conway with 2 states, it measures the byte grid against the two-state engines.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class GenerationsBenchmark {
+    
+    /**
+     * Evolve one generation.
+     * @param state The world.
+     * @param counter The counter of evolved cells.
+     */
+    @Benchmark
+    public void evolve(final GenerationsState state, final CellCounter counter) {
+        state.world.startEngine();
+        counter.cells += state.world.getNumberOfCells();
+    }
+    
+    /**
+     * This class provides the world of the generations benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class GenerationsState {
+        
+        @Param({"64", "256", "1024", "4096", "8192"})
+        public int size;
+        
+        @Param({"0.1", "0.3", "0.5"})
+        public double density;
+        
+        @Param({"/2/3", "345/2/4", "23/3/2"})
+        public String rule;
+        
+        GenerationsWorld world;
+        
+        /**
+         * Create the world and fill it with a random generation.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            world = new GenerationsWorld(size, size, GenerationsRule.parse(rule));
+            world.randomGeneration(density, new Random(WorldState.SEED));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ch.windmill.gameOfLife.bench;
+
+import ch.windmill.gameOfLife.World;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the access to the grid storage of a world. The world is not evolved, so the engine and the
+ * rules are no parameters of these benchmarks.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class GridBenchmark {
+    
+    /**
+     * Count the living cells of the grid word by word. The world itself keeps its population up to date, this
+     * is the cost of a full count after a bulk change.
+     * @param state The world.
+     * @param counter The counter of processed cells.
+     * @return The number of living cells.
+     */
+    @Benchmark
+    public int countAliveCells(final GridState state, final CellCounter counter) {
+        counter.cells += state.cells;
+        return state.world.getGrid().countAlive();
+    }
+    
+    /**
+     * Read every cell of the world one by one.
+     * @param state The world.
+     * @param counter The counter of processed cells.
+     * @return The number of living cells.
+     */
+    @Benchmark
+    public int isAlive(final GridState state, final CellCounter counter) {
+        final World world = state.world;
+        int alive = 0;
+        
+        for(int i = 0; i < world.getXAxis(); i++) {
+            for(int j = 0; j < world.getYAxis(); j++) {
+                if(world.isAlive(i, j)) {
+                    alive++;
+                }
+            }
+        }
+        counter.cells += state.cells;
+        return alive;
+    }
+    
+    /**
+     * This class provides the world of the grid benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class GridState {
+        
+        @Param({"64", "256", "1024", "4096", "8192"})
+        public int size;
+        
+        @Param({"0.1", "0.3", "0.5"})
+        public double density;
+        
+        World world;
+        int cells;
+        
+        /**
+         * Create the world and fill it with a random generation.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            world = new World(size, size, 1);
+            world.randomGeneration(density, new Random(WorldState.SEED));
+            cells = world.getNumberOfCells();
+        }
+    }
+}
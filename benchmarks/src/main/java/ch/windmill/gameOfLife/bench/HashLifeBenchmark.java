@@ -0,0 +1,80 @@
+package ch.windmill.gameOfLife.bench;
+
+import ch.windmill.gameOfLife.HashLifeEngine;
+import ch.windmill.gameOfLife.RuleSet;
+import ch.windmill.gameOfLife.World;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the <code>gameOfLife.HashLifeEngine</code>. The engine is loaded once per trial, each
+ * operation advances it by a number of generations. The rules with birth on 0 neighbours are not supported by
+ * the engine, so they are no parameters.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class HashLifeBenchmark {
+    
+    /**
+     * Advance the engine. One operation is the number of generations of the parameter step.
+     * @param state The engine.
+     * @param counter The counter of evolved cells.
+     */
+    @Benchmark
+    public void advance(final HashLifeState state, final CellCounter counter) {
+        state.engine.advance(state.step);
+        counter.cells += state.cells * state.step;
+    }
+    
+    /**
+     * This class provides the engine of the hashlife benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class HashLifeState {
+        
+        @Param({"64", "256", "1024", "4096", "8192"})
+        public int size;
+        
+        @Param({"0.1", "0.3", "0.5"})
+        public double density;
+        
+        @Param({"CONWAY", "R34_3", "R236_3", "R1357_1357"})
+        public RuleSet rules;
+        
+        @Param({"1", "1024"})
+        public long step;
+        
+        HashLifeEngine engine;
+        long cells;
+        
+        /**
+         * Create the engine and load a random generation.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            final World world = new World(size, size, 1);
+            
+            world.randomGeneration(density, new Random(WorldState.SEED));
+            engine = new HashLifeEngine(rules);
+            engine.load(world.getGrid());
+            cells = world.getNumberOfCells();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package ch.windmill.gameOfLife.bench;
+
+import ch.windmill.gameOfLife.World;
+import ch.windmill.gameOfLife.WorldRenderer;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the drawing of a world into an offscreen image, cell by cell with
+ * <code>World.drawWorld</code> and with the raster writes of a <code>gameOfLife.WorldRenderer</code>. The
+ * benchmarks run headless, so they don't need a display. The image has one pixel per cell, the largest board is
+ * limited to 2048 cells per axis to keep the image in the heap of the fork.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "-Djava.awt.headless=true"})
+public class RenderBenchmark {
+    
+    /**
+     * Draw the whole world. One operation is one frame.
+     * @param state The world and the image.
+     * @param counter The counter of drawn cells.
+     */
+    @Benchmark
+    public void drawWorld(final RenderState state, final CellCounter counter) {
+        state.world.drawWorld(state.graphics);
+        counter.cells += state.world.getNumberOfCells();
+    }
+    
+    /**
+     * Render the whole world into the image of a <code>gameOfLife.WorldRenderer</code> and draw it. One
+     * operation is one frame.
+     * @param state The world and the image.
+     * @param counter The counter of drawn cells.
+     */
+    @Benchmark
+    public void renderImage(final RenderState state, final CellCounter counter) {
+        state.renderer.draw(state.graphics);
+        counter.cells += state.world.getNumberOfCells();
+    }
+    
+    /**
+     * This class provides the world and the image of the render benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class RenderState {
+        
+        @Param({"64", "256", "1024", "2048"})
+        public int size;
+        
+        @Param({"0.1", "0.5"})
+        public double density;
+        
+        World world;
+        WorldRenderer renderer;
+        BufferedImage image;
+        Graphics2D graphics;
+        
+        /**
+         * Create the world, fill it with a random generation and create the image.
+         */
+        @Setup(Level.Trial)
+        public void setUp() {
+            world = new World(size, size, 1);
+            world.randomGeneration(density, new Random(WorldState.SEED));
+            renderer = new WorldRenderer(world);
+            image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+            graphics = image.createGraphics();
+        }
+        
+        /**
+         * Release the graphics context.
+         */
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            graphics.dispose();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package ch.windmill.gameOfLife.bench;
+
+import ch.windmill.gameOfLife.BitwiseLifeEngine;
+import ch.windmill.gameOfLife.BlockLifeEngine;
+import ch.windmill.gameOfLife.LifeEngine;
+import ch.windmill.gameOfLife.RuleSet;
+import ch.windmill.gameOfLife.VectorLifeEngine;
+import ch.windmill.gameOfLife.World;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * This class provides the world of a benchmark. The world is square and has a cell size of 1 pixel. It is filled
+ * with a random generation of a fixed seed before each trial, so every run starts with the same cells.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@State(Scope.Thread)
+public class WorldState {
+    public final static long SEED = 0x5eed_11feL;
+    
+    @Param({"64", "256", "1024", "4096", "8192"})
+    public int size;
+    
+    @Param({"0.1", "0.3", "0.5"})
+    public double density;
+    
+    @Param({"CONWAY", "R34_3", "R236_3", "R1357_1357"})
+    public RuleSet rules;
+    
+    @Param({"LifeEngine", "BitwiseLifeEngine", "BlockLifeEngine"})
+    public String engine;
+    
+    public World world;
+    
+    /**
+     * Create the world and fill it with a random generation.
+     */
+    @Setup(Level.Trial)
+    public void setUp() {
+        world = new World(size, size, 1, createEngine(engine, rules));
+        world.randomGeneration(density, new Random(SEED));
+    }
+    
+    /**
+     * Create an engine by its class name.
+     * @param name The simple name of the engine class.
+     * @param rules The rules of the engine.
+     * @return The engine.
+     * @throws IllegalArgumentException Unknown engine.
+     */
+    static LifeEngine createEngine(final String name, final RuleSet rules) throws IllegalArgumentException {
+        switch(name) {
+            case "LifeEngine":
+                return new LifeEngine(rules);
+            case "BitwiseLifeEngine":
+                return new BitwiseLifeEngine(rules);
+            case "BlockLifeEngine":
+                return new BlockLifeEngine(rules);
+            case "VectorLifeEngine":
+                return new VectorLifeEngine(rules);
+            default:
+                throw new IllegalArgumentException("Unknown engine: "+name);
+        }
+    }
+}
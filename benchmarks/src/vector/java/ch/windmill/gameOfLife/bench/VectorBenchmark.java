@@ -0,0 +1,95 @@
+package ch.windmill.gameOfLife.bench;
+
+import ch.windmill.gameOfLife.BitGrid;
+import ch.windmill.gameOfLife.LifeEngine;
+import ch.windmill.gameOfLife.RuleSet;
+import ch.windmill.gameOfLife.VectorLifeEngine;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * This class measures the <code>gameOfLife.VectorLifeEngine</code> against the <code>gameOfLife.LifeEngine</code>
+ * and the <code>gameOfLife.BitwiseLifeEngine</code>. Each engine evolves the same boards with the method
+ * <code>evolve</code>, without the world around it, so the results show the kernels only. The sizes, the
+ * densities and the rulesets are the parameters of the <code>EngineBenchmark</code>.
+ * <br>
+ * The forks add the module jdk.incubator.vector. A trial of the vector engine fails if the kernel is not
+ * available, so the fallback is never measured by mistake.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 2, jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules", "jdk.incubator.vector"})
+public class VectorBenchmark {
+    
+    /**
+     * Evolve one generation.
+     * @param state The boards.
+     * @param counter The counter of evolved cells.
+     */
+    @Benchmark
+    public void evolve(final BoardState state, final CellCounter counter) {
+        state.engine.evolve(state.current, state.next);
+        final BitGrid g = state.current;
+        state.current = state.next;
+        state.next = g;
+        counter.cells += (long) state.size * state.size;
+    }
+    
+    /**
+     * This class provides the boards of the vector benchmarks.
+     */
+    @State(Scope.Thread)
+    public static class BoardState {
+        
+        @Param({"64", "256", "1024", "4096", "8192"})
+        public int size;
+        
+        @Param({"0.1", "0.3", "0.5"})
+        public double density;
+        
+        @Param({"CONWAY", "R34_3", "R236_3", "R1357_1357"})
+        public RuleSet rules;
+        
+        @Param({"LifeEngine", "BitwiseLifeEngine", "VectorLifeEngine"})
+        public String name;
+        
+        LifeEngine engine;
+        BitGrid current, next;
+        
+        /**
+         * Create the engine and fill the board with a random generation.
+         * @throws IllegalStateException The vector kernel is not available.
+         */
+        @Setup(Level.Trial)
+        public void setUp() throws IllegalStateException {
+            if(name.equals("VectorLifeEngine") && !VectorLifeEngine.isVectorized()) {
+                throw new IllegalStateException("The vector kernel is not available");
+            }
+            final Random ran = new Random(WorldState.SEED);
+            engine = WorldState.createEngine(name, rules);
+            current = new BitGrid(size, size);
+            next = new BitGrid(size, size);
+            for(int x = 0; x < size; x++) {
+                for(int y = 0; y < size; y++) {
+                    current.set(x, y, ran.nextDouble() < density);
+                }
+            }
+        }
+    }
+}
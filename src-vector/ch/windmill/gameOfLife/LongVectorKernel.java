@@ -0,0 +1,184 @@
+package ch.windmill.gameOfLife;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * This class provides the vector kernel of the <code>gameOfLife.VectorLifeEngine</code>. The words of a row are
+ * loaded into the lanes of a <code>LongVector</code> of the preferred species. The neighbour words in the columns
+ * y-1 and y+1 are loaded with an offset of one word, so the carried bits are shifted in without shuffling the
+ * lanes. The first and the last word of a row have no neighbour word on one side, they are calculated by the
+ * bitwise engine like the words after the last full vector.
+ * <br>
+ * This class needs Java 17 and the module jdk.incubator.vector. It is loaded by the engine with reflection.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+final class LongVectorKernel implements RowKernel {
+    private final static VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    
+    /**
+     * Calculate the next generation of the words of a row from the index fromWord to the index toWord
+     * (exclusive).
+     * @param above The row above.
+     * @param row The current row.
+     * @param below The row below.
+     * @param out The row of the next generation.
+     * @param mask The mask of the cells inside of the world.
+     * @param fromWord The index of the first word.
+     * @param toWord The index after the last word.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     */
+    @Override
+    public void evolveRow(final long[] above, final long[] row, final long[] below, final long[] out,
+            final long[] mask, final int fromWord, final int toWord, final int birth, final int remain) {
+        final int words = row.length;
+        final int start = Math.max(fromWord, 1), end = Math.min(toWord, words - 1);
+        int w = fromWord;
+        
+        if(end - start >= SPECIES.length()) {
+            for(; w < start; w++) {
+                out[w] = BitwiseLifeEngine.evolveWord(above, row, below, w, words, birth, remain) & mask[w];
+            }
+            for(final int bound = start + SPECIES.loopBound(end - start); w < bound; w += SPECIES.length()) {
+                evolveVector(above, row, below, w, birth, remain).and(LongVector.fromArray(SPECIES, mask, w))
+                        .intoArray(out, w);
+            }
+        }
+        for(; w < toWord; w++) {
+            out[w] = BitwiseLifeEngine.evolveWord(above, row, below, w, words, birth, remain) & mask[w];
+        }
+    }
+    
+    /**
+     * Calculate the next state of the cells in the words from the index w. The words w-1 and w+1 of each lane
+     * must exist.
+     * @param above The row above.
+     * @param row The current row.
+     * @param below The row below.
+     * @param w The index of the first word.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @return The words of the next generation.
+     */
+    private static LongVector evolveVector(final long[] above, final long[] row, final long[] below, final int w,
+            final int birth, final int remain) {
+        final LongVector a = LongVector.fromArray(SPECIES, above, w);
+        final LongVector c = LongVector.fromArray(SPECIES, row, w);
+        final LongVector b = LongVector.fromArray(SPECIES, below, w);
+        final LongVector aw = west(a, above, w), ae = east(a, above, w);
+        final LongVector cw = west(c, row, w), ce = east(c, row, w);
+        final LongVector bw = west(b, below, w), be = east(b, below, w);
+        
+        // full adders for the row above and the row below, half adder for the current row
+        final LongVector sa = xor(xor(aw, a), ae), ca = aw.and(a).or(ae.and(xor(aw, a)));
+        final LongVector sb = xor(xor(bw, b), be), cb = bw.and(b).or(be.and(xor(bw, b)));
+        final LongVector sc = xor(cw, ce), cc = cw.and(ce);
+        
+        // add the ones
+        final LongVector bit0 = xor(xor(sa, sb), sc);
+        final LongVector t = sa.and(sb).or(sc.and(xor(sa, sb)));
+        
+        // add the twos
+        final LongVector s2 = xor(xor(ca, cb), cc);
+        final LongVector f1 = ca.and(cb).or(cc.and(xor(ca, cb)));
+        final LongVector bit1 = xor(s2, t);
+        final LongVector f2 = s2.and(t);
+        
+        // add the fours
+        final LongVector bit2 = xor(f1, f2);
+        final LongVector bit3 = f1.and(f2);
+        
+        return applyRules(c, bit0, bit1, bit2, bit3, birth, remain);
+    }
+    
+    /**
+     * Apply the birth and remain rules to the lanes of a bit-sliced neighbour count.
+     * @param alive The living state of the cells.
+     * @param bit0 The first bit of the count.
+     * @param bit1 The second bit of the count.
+     * @param bit2 The third bit of the count.
+     * @param bit3 The fourth bit of the count.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @return The next state of the cells.
+     */
+    private static LongVector applyRules(final LongVector alive, final LongVector bit0, final LongVector bit1,
+            final LongVector bit2, final LongVector bit3, final int birth, final int remain) {
+        final LongVector dead = alive.not(), not0 = bit0.not(), not1 = bit1.not(), not2 = bit2.not();
+        LongVector result = LongVector.zero(SPECIES), eq;
+        
+        for(int n = 0; n < 8; n++) {
+            if(((birth | remain) & (1 << n)) != 0) {
+                eq = bit3.not().and((n & 1) != 0 ? bit0 : not0).and((n & 2) != 0 ? bit1 : not1)
+                        .and((n & 4) != 0 ? bit2 : not2);
+                result = result.or(select(eq, alive, dead, n, birth, remain));
+            }
+        }
+        if(((birth | remain) & (1 << 8)) != 0) {
+            result = result.or(select(bit3, alive, dead, 8, birth, remain));
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Get the cells with n living neighbours that are alive in the next generation.
+     * @param eq The cells with n living neighbours.
+     * @param alive The living state of the cells.
+     * @param dead The inverted living state of the cells.
+     * @param n The number of living neighbours.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @return The cells that pass the rules.
+     */
+    private static LongVector select(final LongVector eq, final LongVector alive, final LongVector dead,
+            final int n, final int birth, final int remain) {
+        final boolean b = (birth & (1 << n)) != 0;
+        final boolean r = (remain & (1 << n)) != 0;
+        
+        if(b && r) {
+            return eq;
+        } else if(b) {
+            return eq.and(dead);
+        } else {
+            return eq.and(alive);
+        }
+    }
+    
+    /**
+     * Get the neighbours in the column y-1. The highest bit of the previous word is carried into each lane.
+     * @param v The words.
+     * @param row The row of the words.
+     * @param w The index of the first word.
+     * @return The shifted words.
+     */
+    private static LongVector west(final LongVector v, final long[] row, final int w) {
+        return v.lanewise(VectorOperators.LSHL, 1)
+                .or(LongVector.fromArray(SPECIES, row, w - 1).lanewise(VectorOperators.LSHR, 63));
+    }
+    
+    /**
+     * Get the neighbours in the column y+1. The lowest bit of the next word is carried into each lane.
+     * @param v The words.
+     * @param row The row of the words.
+     * @param w The index of the first word.
+     * @return The shifted words.
+     */
+    private static LongVector east(final LongVector v, final long[] row, final int w) {
+        return v.lanewise(VectorOperators.LSHR, 1)
+                .or(LongVector.fromArray(SPECIES, row, w + 1).lanewise(VectorOperators.LSHL, 63));
+    }
+    
+    /**
+     * Exclusive or of the lanes of two vectors.
+     * @param x The first vector.
+     * @param y The second vector.
+     * @return The result.
+     */
+    private static LongVector xor(final LongVector x, final LongVector y) {
+        return x.lanewise(VectorOperators.XOR, y);
+    }
+}
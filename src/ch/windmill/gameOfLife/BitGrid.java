@@ -0,0 +1,213 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+
+/**
+ * This class provides a bit-packed grid of cells. Every cell uses one bit, a row of cells is stored in an array of
+ * long words. The grid is surrounded by a border of one cell on each side. The border rows and the border bits of
+ * each row are never part of the world, they allow an engine to read the neighbourhood of every cell without
+ * bounds checks.
+ * <br>
+ * The cell (x, y) is stored in row x at the bit position y + 1. The bit position 0 and the bit position
+ * <code>columns + 1</code> of each row are the border bits. The row -1 and the row <code>rows</code> are the border
+ * rows. The border is filled with the cells outside of the world before each generation, see
+ * <code>fillBorder</code>.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class BitGrid {
+    private final int rows, columns, wordsPerRow;
+    private final long[][] words;
+    private final long[] innerMask;
+    
+    /**
+     * Creates a new grid object. All cells are dead.
+     * @param rows The number of rows (x axis).
+     * @param columns The number of columns (y axis).
+     */
+    public BitGrid(final int rows, final int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        wordsPerRow = (columns + 2 + 63) >>> 6;
+        words = new long[rows + 2][wordsPerRow];
+        innerMask = new long[wordsPerRow];
+        
+        for(int p = 1; p <= columns; p++) {
+            innerMask[p >>> 6] |= 1L << p;
+        }
+    }
+    
+    /**
+     * The number of rows.
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * The number of columns.
+     * @return The number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+    
+    /**
+     * The number of long words of a row. This includes the border bits.
+     * @return The number of words per row.
+     */
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+    
+    /**
+     * Get the words of the given row. The index -1 and the index <code>rows</code> return the border rows. The
+     * returned array is not a copy, changes will be written directly into the grid.
+     * @param x The row index from -1 to <code>rows</code>.
+     * @return The words of the row.
+     */
+    public long[] getRow(final int x) {
+        return words[x + 1];
+    }
+    
+    /**
+     * Get the mask of the bits that belong to the world. The border bits and the unused bits of the last word are
+     * not set. The returned array must not be changed.
+     * @return The mask for each word of a row.
+     */
+    public long[] getInnerMask() {
+        return innerMask;
+    }
+    
+    /**
+     * Get the living state of a cell.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return True if the cell is alive, otherwise false.
+     */
+    public boolean get(final int x, final int y) {
+        final int p = y + 1;
+        return (words[x + 1][p >>> 6] & (1L << p)) != 0;
+    }
+    
+    /**
+     * Set the living state of a cell.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param alive True to set the cell alive, false to set it dead.
+     */
+    public void set(final int x, final int y, final boolean alive) {
+        final int p = y + 1;
+        if(alive) {
+            words[x + 1][p >>> 6] |= 1L << p;
+        } else {
+            words[x + 1][p >>> 6] &= ~(1L << p);
+        }
+    }
+    
+    /**
+     * Kill every cell of the grid. The border is cleared too.
+     */
+    public void clear() {
+        for(long[] row : words) {
+            Arrays.fill(row, 0L);
+        }
+    }
+    
+    /**
+     * Fill the border of the grid with the cells outside of the world. The border bits of each row are set first,
+     * then the border rows are filled, so the corners are the cells of the diagonal neighbours.
+     * @param topology The topology of the world.
+     */
+    public void fillBorder(final Topology topology) {
+        final int east = columns + 1;
+        final long[] first = words[1], last = words[rows];
+        
+        switch(topology) {
+            case DEAD:
+                for(int i = 1; i <= rows; i++) {
+                    words[i][0] &= ~1L;
+                    words[i][east >>> 6] &= ~(1L << east);
+                }
+                Arrays.fill(words[0], 0L);
+                Arrays.fill(words[rows+1], 0L);
+                break;
+            case ALIVE_BORDER:
+                for(int i = 1; i <= rows; i++) {
+                    words[i][0] |= 1L;
+                    words[i][east >>> 6] |= 1L << east;
+                }
+                for(int w = 0; w < wordsPerRow; w++) {
+                    words[0][w] = innerMask[w];
+                    words[rows+1][w] = innerMask[w];
+                }
+                words[0][0] |= 1L;
+                words[0][east >>> 6] |= 1L << east;
+                words[rows+1][0] |= 1L;
+                words[rows+1][east >>> 6] |= 1L << east;
+                break;
+            case TORUS:
+            case KLEIN_BOTTLE:
+                for(int i = 1; i <= rows; i++) {
+                    final long[] source = topology == Topology.TORUS ? words[i] : words[rows+1-i];
+                    setBit(words[i], 0, source[columns >>> 6] >>> columns);
+                    setBit(words[i], east, source[0] >>> 1);
+                }
+                System.arraycopy(last, 0, words[0], 0, wordsPerRow);
+                System.arraycopy(first, 0, words[rows+1], 0, wordsPerRow);
+                break;
+        }
+    }
+    
+    /**
+     * Set a bit of a row to the lowest bit of a value.
+     * @param row The row.
+     * @param p The bit position.
+     * @param value The value.
+     */
+    private static void setBit(final long[] row, final int p, final long value) {
+        row[p >>> 6] = (row[p >>> 6] & ~(1L << p)) | ((value & 1L) << p);
+    }
+    
+    /**
+     * Count the number of alive cells. Only the bits inside the world are counted.
+     * @return The number of alive cells.
+     */
+    public int countAlive() {
+        int num = 0;
+        for(int i = 1; i <= rows; i++) {
+            for(int w = 0; w < wordsPerRow; w++) {
+                num += Long.bitCount(words[i][w] & innerMask[w]);
+            }
+        }
+        return num;
+    }
+    
+    /**
+     * Copy the living states of the given grid into this grid. Cells that are outside of one of the grids are
+     * ignored, all other cells of this grid will be dead.
+     * @param o The grid to copy from.
+     */
+    public void copyFrom(final BitGrid o) {
+        final int n = Math.min(wordsPerRow, o.wordsPerRow);
+        final int r = Math.min(rows, o.rows);
+        final int c = Math.min(columns, o.columns);
+        
+        clear();
+        for(int i = 1; i <= r; i++) {
+            System.arraycopy(o.words[i], 0, words[i], 0, n);
+            for(int w = 0; w < n; w++) {
+                words[i][w] &= innerMask[w];
+            }
+        }
+        
+        if(c < columns) {                                   // cut off the columns which were not in the grid o
+            for(int i = 1; i <= r; i++) {
+                for(int p = c + 1; p <= columns; p++) {
+                    words[i][p >>> 6] &= ~(1L << p);
+                }
+            }
+        }
+    }
+}
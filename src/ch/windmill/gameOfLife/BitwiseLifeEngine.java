@@ -0,0 +1,172 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a life engine that evolves 64 cells at once. The engine works on the words of a
+ * <code>gameOfLife.BitGrid</code>. The eight neighbours of each cell are added with bitwise full adders, the
+ * result is a bit-sliced count of four words. The birth and remain rules of the ruleset are applied to this count
+ * with the bit masks of the compiled <code>gameOfLife.Rule</code>, so every outer-totalistic rule is supported.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class BitwiseLifeEngine extends LifeEngine {
+    
+    /**
+     * Creates a new bitwise life engine object. This constructor invokes the main constructor with the default
+     * parameter <code>RuleSet.CONWAY</code>.
+     */
+    public BitwiseLifeEngine() {
+        this(RuleSet.CONWAY);
+    }
+    
+    /**
+     * Creates a new bitwise life engine object.
+     * @param rules Set of rules to define the evolve process.
+     */
+    public BitwiseLifeEngine(final RuleSet rules) {
+        super(rules);
+    }
+    
+    /**
+     * Creates a new bitwise life engine object.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public BitwiseLifeEngine(final Rule rule) {
+        super(rule);
+    }
+    
+    /**
+     * Calculate the next generation of a region. Each word of the next generation is calculated from the words
+     * of the row above, the current row and the row below.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @param fromWord The index of the first word.
+     * @param toWord The index after the last word.
+     */
+    @Override
+    public void evolveRegion(final BitGrid current, final BitGrid next, final int from, final int to,
+            final int fromWord, final int toWord) {
+        final int birth = getRule().getBirthMask();
+        final int remain = getRule().getRemainMask();
+        final long[] mask = current.getInnerMask();
+        final int words = current.getWordsPerRow();
+        
+        for(int i = from; i < to; i++) {
+            final long[] above = current.getRow(i-1);
+            final long[] row = current.getRow(i);
+            final long[] below = current.getRow(i+1);
+            final long[] out = next.getRow(i);
+            
+            for(int w = fromWord; w < toWord; w++) {
+                out[w] = evolveWord(above, row, below, w, words, birth, remain) & mask[w];
+            }
+        }
+    }
+    
+    /**
+     * Calculate the next state of the 64 cells in one word.
+     * @param above The row above.
+     * @param row The current row.
+     * @param below The row below.
+     * @param w The index of the word.
+     * @param words The number of words in a row.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @return The word of the next generation.
+     */
+    static long evolveWord(final long[] above, final long[] row, final long[] below, final int w, final int words,
+            final int birth, final int remain) {
+        final long a = above[w], c = row[w], b = below[w];
+        long aw, ae, cw, ce, bw, be;
+        
+        aw = a << 1;                                // the neighbour in the column y-1
+        ae = a >>> 1;                               // the neighbour in the column y+1
+        cw = c << 1;
+        ce = c >>> 1;
+        bw = b << 1;
+        be = b >>> 1;
+        if(w > 0) {                                 // carry the bits from the neighbour words
+            aw |= above[w-1] >>> 63;
+            cw |= row[w-1] >>> 63;
+            bw |= below[w-1] >>> 63;
+        }
+        if(w < words-1) {
+            ae |= above[w+1] << 63;
+            ce |= row[w+1] << 63;
+            be |= below[w+1] << 63;
+        }
+        
+        // full adders for the row above and the row below, half adder for the current row
+        final long sa = aw ^ a ^ ae, ca = (aw & a) | (ae & (aw ^ a));
+        final long sb = bw ^ b ^ be, cb = (bw & b) | (be & (bw ^ b));
+        final long sc = cw ^ ce, cc = cw & ce;
+        
+        // add the ones
+        final long bit0 = sa ^ sb ^ sc;
+        final long t = (sa & sb) | (sc & (sa ^ sb));
+        
+        // add the twos
+        final long s2 = ca ^ cb ^ cc;
+        final long f1 = (ca & cb) | (cc & (ca ^ cb));
+        final long bit1 = s2 ^ t;
+        final long f2 = s2 & t;
+        
+        // add the fours
+        final long bit2 = f1 ^ f2;
+        final long bit3 = f1 & f2;
+        
+        return applyRules(c, bit0, bit1, bit2, bit3, birth, remain);
+    }
+    
+    /**
+     * Apply the birth and remain rules to a bit-sliced neighbour count.
+     * @param alive The living state of the cells.
+     * @param bit0 The first bit of the count.
+     * @param bit1 The second bit of the count.
+     * @param bit2 The third bit of the count.
+     * @param bit3 The fourth bit of the count.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @return The next state of the cells.
+     */
+    static long applyRules(final long alive, final long bit0, final long bit1, final long bit2, final long bit3,
+            final int birth, final int remain) {
+        long result = 0, eq;
+        int n;
+        
+        for(n = 0; n < 8; n++) {
+            if(((birth | remain) & (1 << n)) != 0) {
+                eq = ~bit3 & ((n & 1) != 0 ? bit0 : ~bit0) & ((n & 2) != 0 ? bit1 : ~bit1)
+                        & ((n & 4) != 0 ? bit2 : ~bit2);
+                result |= eq & select(alive, n, birth, remain);
+            }
+        }
+        if(((birth | remain) & (1 << 8)) != 0) {
+            result |= bit3 & select(alive, 8, birth, remain);
+        }
+        
+        return result;
+    }
+    
+    /**
+     * Get the cells that are alive in the next generation if they have n living neighbours.
+     * @param alive The living state of the cells.
+     * @param n The number of living neighbours.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @return The cells that pass the rules.
+     */
+    private static long select(final long alive, final int n, final int birth, final int remain) {
+        final boolean b = (birth & (1 << n)) != 0;
+        final boolean r = (remain & (1 << n)) != 0;
+        
+        if(b && r) {
+            return -1L;
+        } else if(b) {
+            return ~alive;
+        } else {
+            return alive;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ch.windmill.gameOfLife;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class provides a life engine that evolves blocks of 2x2 cells with one table lookup. The engine works on
+ * the words of a <code>gameOfLife.BitGrid</code>. The block and its neighbours are a square of 4x4 cells, the 16
+ * bits of the square are the index of a table with 65536 entries. Each entry holds the next generation of the
+ * four cells in the middle of the square.
+ * <br>
+ * The bits of the index are the rows of the square, 4 bits per row from the row above the block to the row below
+ * it. The lowest bit of a row is the column left of the block. The bits of an entry are the upper left, the upper
+ * right, the lower left and the lower right cell of the block.
+ * <br>
+ * A table is built on the first generation of a rule and cached for every engine with the same rule, so worlds
+ * with the same rule share it.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class BlockLifeEngine extends LifeEngine {
+    private final static ConcurrentHashMap<Rule, byte[]> TABLES = new ConcurrentHashMap<>();
+    private final static long[] EMPTY = new long[1];
+    
+    /**
+     * Creates a new block life engine object. This constructor invokes the main constructor with the default
+     * parameter <code>RuleSet.CONWAY</code>.
+     */
+    public BlockLifeEngine() {
+        this(RuleSet.CONWAY);
+    }
+    
+    /**
+     * Creates a new block life engine object.
+     * @param rules Set of rules to define the evolve process.
+     */
+    public BlockLifeEngine(final RuleSet rules) {
+        super(rules);
+    }
+    
+    /**
+     * Creates a new block life engine object.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public BlockLifeEngine(final Rule rule) {
+        super(rule);
+    }
+    
+    /**
+     * Get the table of a rule. The table is built if no engine has used the rule before.
+     * @param rule The compiled rule.
+     * @return The table with 65536 entries.
+     */
+    public static byte[] getTable(final Rule rule) {
+        return TABLES.computeIfAbsent(rule, BlockLifeEngine::createTable);
+    }
+    
+    /**
+     * Calculate the next generation of a region. The rows are evolved in pairs and the columns in pairs of two
+     * cells, which are aligned to the even bit positions. A pair that is cut off by the region is evolved as a
+     * whole, but only the cells inside of the region are written.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @param fromWord The index of the first word.
+     * @param toWord The index after the last word.
+     */
+    @Override
+    public void evolveRegion(final BitGrid current, final BitGrid next, final int from, final int to,
+            final int fromWord, final int toWord) {
+        final byte[] table = getTable(getRule());
+        final int first = Math.max(1, fromWord << 6);
+        final int last = Math.min(current.getColumns() + 1, toWord << 6);
+        
+        for(int i = from; i < to; i += 2) {
+            final boolean pair = i + 1 < to;
+            final long[] r0 = current.getRow(i-1);
+            final long[] r1 = current.getRow(i);
+            final long[] r2 = current.getRow(i+1);
+            final long[] r3 = i + 2 <= current.getRows() ? current.getRow(i+2) : EMPTY;
+            final long[] upper = next.getRow(i);
+            final long[] lower = pair ? next.getRow(i+1) : null;
+            
+            for(int p = first & ~1; p < last; p += 2) {
+                final int index = bits(r0, p - 1) | bits(r1, p - 1) << 4 | bits(r2, p - 1) << 8
+                        | bits(r3, p - 1) << 12;
+                final int cells = table[index];
+                final long mask = (p < first ? 0 : 1L) | (p + 1 < last ? 2L : 0);
+                final int w = p >>> 6, b = p & 63;
+                
+                upper[w] = (upper[w] & ~(mask << b)) | ((cells & mask) << b);
+                if(pair) {
+                    lower[w] = (lower[w] & ~(mask << b)) | (((cells >>> 2) & mask) << b);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the 4 bits of a row from a bit position. The bits outside of the row are 0.
+     * @param row The row.
+     * @param q The bit position of the lowest bit, it can be -1.
+     * @return The 4 bits.
+     */
+    private static int bits(final long[] row, final int q) {
+        if(q < 0) {
+            return (int) (row[0] << 1) & 0xf;
+        }
+        final int w = q >>> 6, b = q & 63;
+        long v = w < row.length ? row[w] >>> b : 0;
+        if(b > 60 && w + 1 < row.length) {
+            v |= row[w + 1] << (64 - b);
+        }
+        return (int) v & 0xf;
+    }
+    
+    /**
+     * Create the table of a rule. Each of the four cells of the block is calculated from its square of 3x3 cells
+     * inside of the square of 4x4 cells.
+     * @param rule The compiled rule.
+     * @return The table with 65536 entries.
+     */
+    private static byte[] createTable(final Rule rule) {
+        final byte[] table = new byte[1 << 16];
+        
+        for(int index = 0; index < table.length; index++) {
+            int cells = 0;
+            for(int c = 0; c < 4; c++) {
+                final int x = 1 + (c >>> 1), y = 1 + (c & 1);
+                int n = 0;
+                for(int dx = -1; dx <= 1; dx++) {
+                    for(int dy = -1; dy <= 1; dy++) {
+                        if(dx != 0 || dy != 0) {
+                            n += (index >>> (4 * (x + dx) + y + dy)) & 1;
+                        }
+                    }
+                }
+                if(rule.next(((index >>> (4 * x + y)) & 1) != 0, n)) {
+                    cells |= 1 << c;
+                }
+            }
+            table[index] = (byte) cells;
+        }
+        return table;
+    }
+}
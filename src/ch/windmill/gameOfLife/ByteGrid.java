@@ -0,0 +1,141 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+
+/**
+ * This class provides a grid of cells with up to 256 states. Every cell uses one byte, the rows are stored one
+ * after another in a single byte array. Like a <code>gameOfLife.BitGrid</code>, the grid is surrounded by a border
+ * of one cell on each side, so an engine reads the neighbourhood of every cell without bounds checks.
+ * <br>
+ * The cell (x, y) is stored at the index <code>(x + 1) * stride + y + 1</code>, the stride is the number of
+ * columns plus 2. The border is filled with the cells outside of the world before each generation, see
+ * <code>fillBorder</code>.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class ByteGrid {
+    private final int rows, columns, stride;
+    private final byte[] cells;
+    
+    /**
+     * Creates a new grid object. All cells have the state 0.
+     * @param rows The number of rows (x axis).
+     * @param columns The number of columns (y axis).
+     */
+    public ByteGrid(final int rows, final int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        stride = columns + 2;
+        cells = new byte[(rows + 2) * stride];
+    }
+    
+    /**
+     * The number of rows.
+     * @return The number of rows.
+     */
+    public int getRows() {
+        return rows;
+    }
+    
+    /**
+     * The number of columns.
+     * @return The number of columns.
+     */
+    public int getColumns() {
+        return columns;
+    }
+    
+    /**
+     * The number of bytes of a row, including the two border cells.
+     * @return The stride.
+     */
+    public int getStride() {
+        return stride;
+    }
+    
+    /**
+     * Get the array of the cells. The array is not copied, an engine reads and writes it directly.
+     * @return The array of the cells.
+     */
+    public byte[] getCells() {
+        return cells;
+    }
+    
+    /**
+     * Get the state of the cell (x, y).
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return The state from 0 to 255.
+     */
+    public int get(final int x, final int y) {
+        return cells[(x + 1) * stride + y + 1] & 0xff;
+    }
+    
+    /**
+     * Set the state of the cell (x, y).
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param state The state from 0 to 255.
+     */
+    public void set(final int x, final int y, final int state) {
+        cells[(x + 1) * stride + y + 1] = (byte) state;
+    }
+    
+    /**
+     * Set the state of every cell and the border to 0.
+     */
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+    }
+    
+    /**
+     * Fill the border of the grid with the cells outside of the world. The border cells of each row are set
+     * first, then the border rows are filled, so the corners are the cells of the diagonal neighbours. An alive
+     * border is filled with living cells, the state 1.
+     * @param topology The topology of the world.
+     */
+    public void fillBorder(final Topology topology) {
+        final int last = rows * stride;
+        
+        switch(topology) {
+            case DEAD:
+            case ALIVE_BORDER:
+                final byte b = (byte) (topology == Topology.DEAD ? 0 : 1);
+                for(int i = 1; i <= rows; i++) {
+                    cells[i * stride] = b;
+                    cells[i * stride + columns + 1] = b;
+                }
+                Arrays.fill(cells, 0, stride, b);
+                Arrays.fill(cells, last + stride, last + 2 * stride, b);
+                break;
+            case TORUS:
+            case KLEIN_BOTTLE:
+                for(int i = 1; i <= rows; i++) {
+                    final int source = (topology == Topology.TORUS ? i : rows + 1 - i) * stride;
+                    cells[i * stride] = cells[source + columns];
+                    cells[i * stride + columns + 1] = cells[source + 1];
+                }
+                System.arraycopy(cells, last, cells, 0, stride);
+                System.arraycopy(cells, stride, cells, last + stride, stride);
+                break;
+        }
+    }
+    
+    /**
+     * Count the cells with a state. Only the cells inside the world are counted.
+     * @param state The state.
+     * @return The number of cells.
+     */
+    public int count(final int state) {
+        final byte s = (byte) state;
+        int num = 0;
+        for(int i = 1; i <= rows; i++) {
+            for(int p = i * stride + 1, end = p + columns; p < end; p++) {
+                if(cells[p] == s) {
+                    num++;
+                }
+            }
+        }
+        return num;
+    }
+}
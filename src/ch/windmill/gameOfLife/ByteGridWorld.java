@@ -0,0 +1,273 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class provides the base of a world with cells of more than two states. The generations are stored in two
+ * <code>gameOfLife.ByteGrid</code> objects, which are used alternately like the grids of a
+ * <code>gameOfLife.World</code>. The world supports the topologies and the fork/join pool of a world, the default
+ * topology has dead edges. A subclass provides the rule and evolves the bands of rows with its engine.
+ * <br>
+ * The population is the number of living cells, the state 1. Dying cells are not counted.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public abstract class ByteGridWorld {
+    private final static int MINBANDROWS = 16;
+    
+    private final int xAxis, yAxis;
+    private ByteGrid grid, nextGrid;
+    private ForkJoinPool pool, ownPool;
+    private Topology topology;
+    private long generation;
+    private int population;
+    
+    /**
+     * Creates a new world object. All cells are dead.
+     * @param xAxis The number of cells in the x axis.
+     * @param yAxis The number of cells in the y axis.
+     */
+    protected ByteGridWorld(final int xAxis, final int yAxis) {
+        this.xAxis = xAxis;
+        this.yAxis = yAxis;
+        grid = new ByteGrid(xAxis, yAxis);
+        nextGrid = new ByteGrid(xAxis, yAxis);
+        topology = Topology.DEAD;
+    }
+    
+    /**
+     * The number of states of the rule, including the dead and the living state.
+     * @return The number of states.
+     */
+    protected abstract int getStates();
+    
+    /**
+     * Calculate the next generation of a band of rows with the engine of the world. The border of the current
+     * grid is filled with the topology of the world.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @return The number of living cells in the written rows of the next generation.
+     */
+    protected abstract int evolveRows(ByteGrid current, ByteGrid next, int from, int to);
+    
+    /**
+     * The number of generations since the world was created or killed.
+     * @return The generation counter.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * 
+     * @return The horizontal size.
+     */
+    public int getXAxis() {
+        return xAxis;
+    }
+    
+    /**
+     * 
+     * @return The vertical size.
+     */
+    public int getYAxis() {
+        return yAxis;
+    }
+    
+    /**
+     * The number of cells in this world.
+     * @return The number of cells.
+     */
+    public int getNumberOfCells() {
+        return xAxis * yAxis;
+    }
+    
+    /**
+     * Get the grid of the current generation. The grid is replaced by the next generation.
+     * @return The grid.
+     */
+    public ByteGrid getGrid() {
+        return grid;
+    }
+    
+    /**
+     * Kill the cells with a state that the rule doesnt have. This method is invoked after the rule was changed.
+     * @param states The number of states of the new rule.
+     */
+    protected void removeStates(final int states) {
+        for(int x = 0; x < xAxis; x++) {
+            for(int y = 0; y < yAxis; y++) {
+                if(grid.get(x, y) >= states) {
+                    grid.set(x, y, 0);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Set the number of threads to evolve a generation. A value of 1 evolves the generations on the calling
+     * thread. Otherwise a new fork/join pool with the given parallelism is created. A pool that was created by
+     * this method before is shut down.
+     * @param threads The number of threads.
+     * @throws IllegalArgumentException The number of threads is lower than 1.
+     */
+    public void setThreads(final int threads) throws IllegalArgumentException {
+        if(threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be greater than 0");
+        }
+        final ForkJoinPool p = threads == 1 ? null : new ForkJoinPool(threads);
+        
+        setPool(p);
+        ownPool = p;
+    }
+    
+    /**
+     * Set the fork/join pool to evolve a generation. The pool can be shared with other worlds, it is not shut
+     * down by this world. Only a pool that was created by the method <code>setThreads</code> is shut down when it
+     * is replaced. A null reference evolves the generations on the calling thread.
+     * @param pool The pool or null.
+     */
+    public void setPool(final ForkJoinPool pool) {
+        if(ownPool != null && ownPool != pool) {
+            ownPool.shutdown();
+            ownPool = null;
+        }
+        this.pool = pool;
+    }
+    
+    /**
+     * Get the topology of the world.
+     * @return The topology.
+     */
+    public Topology getTopology() {
+        return topology;
+    }
+    
+    /**
+     * Set the topology of the world.
+     * @param topology The topology.
+     */
+    public void setTopology(final Topology topology) {
+        this.topology = topology;
+    }
+    
+    /**
+     * Get the state of the cell with the coordinates x and y.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return The state, 0 is dead and 1 is alive.
+     */
+    public int getState(final int x, final int y) {
+        return grid.get(x, y);
+    }
+    
+    /**
+     * Change the state of the cell with the coordinates x and y.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param state The state, 0 is dead and 1 is alive.
+     * @throws IllegalArgumentException The rule doesnt have the state.
+     */
+    public void setState(final int x, final int y, final int state) throws IllegalArgumentException {
+        if(state < 0 || state >= getStates()) {
+            throw new IllegalArgumentException("The state must be between 0 and "+(getStates() - 1));
+        }
+        population += (state == 1 ? 1 : 0) - (grid.get(x, y) == 1 ? 1 : 0);
+        grid.set(x, y, state);
+    }
+    
+    /**
+     * Check if the cell with the coordinates x and y is alive. Dying cells are not alive.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return True if the cell has the state 1.
+     */
+    public boolean isAlive(final int x, final int y) {
+        return grid.get(x, y) == 1;
+    }
+    
+    /**
+     * Change the living state of the cell with the coordinates x and y.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param isAlive True to set the cell alive, false to set it dead.
+     */
+    public void setAlive(final int x, final int y, final boolean isAlive) {
+        setState(x, y, isAlive ? 1 : 0);
+    }
+    
+    /**
+     * The number of living cells.
+     * @return The number of cells with the state 1.
+     */
+    public int getPopulation() {
+        return population;
+    }
+    
+    /**
+     * Kill every cell and reset the generation counter.
+     */
+    public void killGeneration() {
+        grid.clear();
+        nextGrid.clear();
+        population = 0;
+        generation = 0;
+    }
+    
+    /**
+     * Create a random generation. This method invokes the method <code>randomGeneration</code> with a new random
+     * number generator.
+     * @param percentAlive The percentage of living cells.
+     * @throws IllegalArgumentException Illegal percentage.
+     */
+    public void randomGeneration(final double percentAlive) throws IllegalArgumentException {
+        randomGeneration(percentAlive, new Random());
+    }
+    
+    /**
+     * Create a random generation with the given random number generator. Each cell is alive with the given
+     * probability, the other cells keep their state.
+     * @param percentAlive The percentage of living cells.
+     * @param ran The random number generator.
+     * @throws IllegalArgumentException Illegal percentage.
+     */
+    public void randomGeneration(final double percentAlive, final Random ran) throws IllegalArgumentException {
+        if(percentAlive <= 0.0 || percentAlive > 1.0) {
+            throw new IllegalArgumentException("The parameter must be greater than 0.0f and lower or equal 1.0f ");
+        }
+        for(int x = 0; x < xAxis; x++) {
+            for(int y = 0; y < yAxis; y++) {
+                if(ran.nextDouble() < percentAlive) {
+                    grid.set(x, y, 1);
+                }
+            }
+        }
+        population = grid.count(1);
+    }
+    
+    /**
+     * Evolve the current generation of cells. Start the engine to calculate a new generation into the second
+     * grid and swap the grids afterwards. If this world has a fork/join pool, the rows are split into bands
+     * which are evolved in parallel.
+     */
+    public void startEngine() {
+        final ByteGrid current = grid, next = nextGrid;
+        
+        current.fillBorder(topology);
+        if(pool == null) {
+            population = evolveRows(current, next, 0, xAxis);
+        } else {
+            final LongAdder alive = new LongAdder();
+            pool.invoke(new EvolveTask((from, to) -> alive.add(evolveRows(current, next, from, to)), 0, xAxis,
+                    Math.max(MINBANDROWS, xAxis / (pool.getParallelism() * 4))));
+            population = alive.intValue();
+        }
+        grid = next;
+        nextGrid = current;
+        generation++;
+    }
+}
@@ -66,7 +66,7 @@ public class Cell {
      * @param y The y position.
      */
     public void draw(Graphics g, final int x, final int y) {
-        if(isAlive) {
+        if(isAlive()) {
             g.setColor(COLORALIVE);
         } else {
             g.setColor(COLORDEAD);
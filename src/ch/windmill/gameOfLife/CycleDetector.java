@@ -0,0 +1,212 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides the detection of still lifes and oscillators. It keeps a 64 bit hash of the current
+ * generation and the hashes of the last generations. If the hash of a generation is equal to the hash of the
+ * generation p generations before, the world repeats itself with the period p from then on, a still life has the
+ * period 1.
+ * <br>
+ * The hash is the XOR of a hash of each non-empty word of the grid and its position, like a Zobrist hash with a
+ * key for every word value instead of every cell. A generation only changes the hash of the changed words, so the
+ * hash is updated incrementally from the words that differ between two generations. If the world tracks its
+ * active tiles, only the changed tiles are compared.
+ * <br>
+ * Two different generations have the same hash with a probability of about 2^-64, a detected period is not
+ * verified.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class CycleDetector {
+    private final long[] hashes;
+    private long hash, generation, period, stableGeneration;
+    private int count;
+    
+    /**
+     * Creates a new cycle detector.
+     * @param maxPeriod The maximum period that is detected.
+     * @throws IllegalArgumentException The maximum period is lower than 1.
+     */
+    public CycleDetector(final int maxPeriod) throws IllegalArgumentException {
+        if(maxPeriod < 1) {
+            throw new IllegalArgumentException("The maximum period must be greater than 0");
+        }
+        hashes = new long[maxPeriod + 1];
+    }
+    
+    /**
+     * Get the maximum period that is detected.
+     * @return The maximum period.
+     */
+    public int getMaxPeriod() {
+        return hashes.length - 1;
+    }
+    
+    /**
+     * Get the hash of the current generation.
+     * @return The hash.
+     */
+    public long getHash() {
+        return hash;
+    }
+    
+    /**
+     * Get the period of the world.
+     * @return The period or 0 if no period was detected.
+     */
+    public long getPeriod() {
+        return period;
+    }
+    
+    /**
+     * Get the first generation of the cycle. The world repeats itself with the period since this generation.
+     * @return The generation counter or -1 if no period was detected.
+     */
+    public long getStableGeneration() {
+        return period > 0 ? stableGeneration : -1;
+    }
+    
+    /**
+     * Check if a period was detected.
+     * @return True if the world is a still life or an oscillator.
+     */
+    public boolean isStable() {
+        return period > 0;
+    }
+    
+    /**
+     * Hash a whole generation. The hashes of the generations before are cleared.
+     * @param grid The grid of the generation.
+     * @param generation The generation counter.
+     */
+    void rehash(final BitGrid grid, final long generation) {
+        final long[] mask = grid.getInnerMask();
+        final int wordsPerRow = grid.getWordsPerRow();
+        
+        hash = 0;
+        for(int x = 0; x < grid.getRows(); x++) {
+            final long[] r = grid.getRow(x);
+            for(int w = 0; w < wordsPerRow; w++) {
+                hash ^= hash(x * wordsPerRow + w, r[w] & mask[w]);
+            }
+        }
+        count = 0;
+        period = 0;
+        record(generation);
+    }
+    
+    /**
+     * Update the hash with the words that differ between two generations and look for a period. If the
+     * generation doesnt follow the last generation, the hashes of the generations before are cleared.
+     * @param previous The generation before.
+     * @param current The new generation.
+     * @param tracker The tracker of the active tiles or null to compare every word.
+     * @param generation The generation counter of the new generation.
+     */
+    void evolve(final BitGrid previous, final BitGrid current, final TileTracker tracker, final long generation) {
+        final int wordsPerRow = current.getWordsPerRow();
+        
+        if(tracker == null) {
+            update(previous, current, 0, current.getRows(), 0, wordsPerRow);
+        } else {
+            for(int tr = 0; tr < tracker.getTileRows(); tr++) {
+                final int firstRow = tr * TileTracker.TILEROWS;
+                final int lastRow = Math.min(firstRow + TileTracker.TILEROWS, current.getRows());
+                for(int tw = 0; tw < wordsPerRow; tw++) {
+                    if(tracker.isChanged(tr, tw)) {
+                        update(previous, current, firstRow, lastRow, tw, tw + 1);
+                    }
+                }
+            }
+        }
+        if(generation != this.generation + 1) {
+            count = 0;
+            period = 0;
+        }
+        record(generation);
+    }
+    
+    /**
+     * Update the hash after a word was edited. The edit breaks the cycle, so a detected period and the hashes of
+     * the generations before are cleared.
+     * @param index The index of the word, row times words per row plus word.
+     * @param before The masked word before the edit.
+     * @param after The masked word after the edit.
+     */
+    void edit(final int index, final long before, final long after) {
+        hash ^= hash(index, before) ^ hash(index, after);
+        period = 0;
+        hashes[(int) Math.floorMod(generation, (long) hashes.length)] = hash;
+        count = 1;
+    }
+    
+    /**
+     * Update the hash with the words of a region that differ between two generations.
+     * @param previous The generation before.
+     * @param current The new generation.
+     * @param fromRow The first row.
+     * @param toRow The row after the last row.
+     * @param fromWord The first word.
+     * @param toWord The word after the last word.
+     */
+    private void update(final BitGrid previous, final BitGrid current, final int fromRow, final int toRow,
+            final int fromWord, final int toWord) {
+        final long[] mask = current.getInnerMask();
+        final int wordsPerRow = current.getWordsPerRow();
+        
+        for(int x = fromRow; x < toRow; x++) {
+            final long[] p = previous.getRow(x);
+            final long[] c = current.getRow(x);
+            for(int w = fromWord; w < toWord; w++) {
+                final long before = p[w] & mask[w];
+                final long after = c[w] & mask[w];
+                if(before != after) {
+                    hash ^= hash(x * wordsPerRow + w, before) ^ hash(x * wordsPerRow + w, after);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Store the hash of a generation and compare it with the hashes of the generations before. The smallest
+     * period is detected first.
+     * @param generation The generation counter.
+     */
+    private void record(final long generation) {
+        final int n = hashes.length;
+        
+        this.generation = generation;
+        if(period == 0) {
+            for(int p = 1; p <= count && p < n; p++) {
+                if(hashes[(int) Math.floorMod(generation - p, (long) n)] == hash) {
+                    period = p;
+                    stableGeneration = generation - p;
+                    break;
+                }
+            }
+        }
+        hashes[(int) Math.floorMod(generation, (long) n)] = hash;
+        count = Math.min(count + 1, n);
+    }
+    
+    /**
+     * Hash a word at a position. An empty word has the hash 0, so an empty world has the hash 0. The position is
+     * mixed into a key, which is mixed with the word by the finalizer of MurmurHash3.
+     * @param index The index of the word.
+     * @param word The masked word.
+     * @return The hash.
+     */
+    private static long hash(final int index, final long word) {
+        return word == 0 ? 0 : mix(word ^ mix(index + 0x9e3779b97f4a7c15L));
+    }
+    
+    /**
+     * The 64 bit finalizer of MurmurHash3.
+     * @param z The value.
+     * @return The mixed value.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,136 @@
+package ch.windmill.gameOfLife;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class provides the dirty regions of a world. A region is dirty if one of its cells was changed since the
+ * regions were taken the last time. The grid is split into the same tiles as the tiles of a
+ * <code>gameOfLife.TileTracker</code>, 64 rows and one word.
+ * <br>
+ * The regions are marked by the thread that evolves the world and taken by the thread that draws it, so every
+ * method is synchronized.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+class DirtyRegions {
+    private final int tileRows, tileWords, xAxis, yAxis;
+    private final boolean[] dirty;
+    
+    /**
+     * Creates a new set of dirty regions. Every tile is marked as dirty.
+     * @param grid The grid of the world.
+     */
+    DirtyRegions(final BitGrid grid) {
+        tileRows = (grid.getRows() + TileTracker.TILEROWS - 1) / TileTracker.TILEROWS;
+        tileWords = grid.getWordsPerRow();
+        xAxis = grid.getRows();
+        yAxis = grid.getColumns();
+        dirty = new boolean[tileRows * tileWords];
+        markAll();
+    }
+    
+    /**
+     * Mark every tile as dirty.
+     */
+    synchronized void markAll() {
+        Arrays.fill(dirty, true);
+    }
+    
+    /**
+     * Mark the tile of a cell as dirty.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     */
+    synchronized void mark(final int x, final int y) {
+        dirty[(x / TileTracker.TILEROWS) * tileWords + ((y + 1) >>> 6)] = true;
+    }
+    
+    /**
+     * Mark the tiles of regions as dirty. The regions are in cell coordinates, the parts outside of the grid are
+     * ignored.
+     * @param regions The regions.
+     */
+    synchronized void mark(final List<Rectangle> regions) {
+        for(Rectangle r : regions) {
+            final int toTr = Math.min(tileRows, (Math.min(r.x + r.width, xAxis) + TileTracker.TILEROWS - 1)
+                    / TileTracker.TILEROWS);
+            final int toTw = Math.min(tileWords, ((Math.min(r.y + r.height, yAxis) + 64) >>> 6));
+            for(int tr = Math.max(0, r.x) / TileTracker.TILEROWS; tr < toTr; tr++) {
+                for(int tw = (Math.max(0, r.y) + 1) >>> 6; tw < toTw; tw++) {
+                    dirty[tr * tileWords + tw] = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Mark the tiles that were changed in the last generation of a tile tracker.
+     * @param tracker The tile tracker.
+     */
+    synchronized void mark(final TileTracker tracker) {
+        for(int tr = 0; tr < tileRows; tr++) {
+            for(int tw = 0; tw < tileWords; tw++) {
+                if(tracker.isChanged(tr, tw)) {
+                    dirty[tr * tileWords + tw] = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Mark the tiles that differ between two generations. The grids are compared word by word.
+     * @param previous The previous generation.
+     * @param current The current generation.
+     */
+    synchronized void mark(final BitGrid previous, final BitGrid current) {
+        final long[] mask = current.getInnerMask();
+        
+        for(int x = 0; x < xAxis; x++) {
+            final long[] p = previous.getRow(x);
+            final long[] c = current.getRow(x);
+            final int t = (x / TileTracker.TILEROWS) * tileWords;
+            
+            for(int w = 0; w < tileWords; w++) {
+                if(((p[w] ^ c[w]) & mask[w]) != 0) {
+                    dirty[t + w] = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Take the dirty regions and clear them. The dirty tiles of a tile row are merged into one rectangle for
+     * each run of adjacent tiles. The rectangles are in cell coordinates.
+     * @return The dirty regions.
+     */
+    synchronized List<Rectangle> take() {
+        final List<Rectangle> regions = new ArrayList<>();
+        
+        for(int tr = 0; tr < tileRows; tr++) {
+            final int fromX = tr * TileTracker.TILEROWS;
+            final int toX = Math.min(fromX + TileTracker.TILEROWS, xAxis);
+            int tw = 0;
+            
+            while(tw < tileWords) {
+                if(!dirty[tr * tileWords + tw]) {
+                    tw++;
+                    continue;
+                }
+                final int first = tw;
+                while(tw < tileWords && dirty[tr * tileWords + tw]) {
+                    dirty[tr * tileWords + tw] = false;
+                    tw++;
+                }
+                final int fromY = Math.max(0, first * 64 - 1);       // bit 0 of the first word is the border
+                final int toY = Math.min(yAxis, tw * 64 - 1);
+                if(toY > fromY) {
+                    regions.add(new Rectangle(fromX, fromY, toX - fromX, toY - fromY));
+                }
+            }
+        }
+        return regions;
+    }
+}
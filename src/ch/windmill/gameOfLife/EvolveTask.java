@@ -0,0 +1,53 @@
+package ch.windmill.gameOfLife;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * This class provides a fork/join task to evolve a band of rows. The task splits its band into two halves until
+ * the band is smaller than the threshold. The rows at the edge of a band read their neighbours from the current
+ * grid, which is not changed while evolving, so the result is the same as the result of a sequential engine.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+class EvolveTask extends RecursiveAction {
+    private static final long serialVersionUID = 1L;
+    private final Band band;
+    private final int from, to, threshold;
+    
+    /**
+     * Creates a new evolve task.
+     * @param band The band to evolve the rows.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @param threshold The maximum number of rows that are evolved without splitting the band.
+     */
+    EvolveTask(final Band band, final int from, final int to, final int threshold) {
+        this.band = band;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+    
+    @Override
+    protected void compute() {
+        if(to - from <= threshold) {
+            band.evolve(from, to);
+        } else {
+            final int middle = (from + to) >>> 1;
+            invokeAll(new EvolveTask(band, from, middle, threshold), new EvolveTask(band, middle, to, threshold));
+        }
+    }
+    
+    /**
+     * Provides the evolution of a band of rows.
+     */
+    interface Band {
+        
+        /**
+         * Evolve the rows from the index from to the index to (exclusive).
+         * @param from The index of the first row.
+         * @param to The index after the last row.
+         */
+        void evolve(int from, int to);
+    }
+}
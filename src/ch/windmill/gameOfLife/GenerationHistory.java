@@ -0,0 +1,360 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+
+/**
+ * This class provides a bounded history of the generations of a world. Each generation is stored as the XOR
+ * delta to the generation before, only the words that have changed are stored. A full copy of a generation, a
+ * keyframe, is stored whenever the deltas since the last keyframe have more words than four grids, so a seek
+ * to a far generation replays a bounded number of deltas.
+ * <br>
+ * The history has a cursor, the generation that the world currently has. Stepping one generation backwards or
+ * forwards applies one delta to the grid of the world, so the cost depends on the number of changed words only.
+ * If a generation is recorded while the cursor is not at the newest generation, the generations after the cursor
+ * are dropped.
+ * <br>
+ * The memory of the deltas and keyframes is limited by a budget. If a new generation exceeds the budget, the
+ * oldest generations are evicted, so the memory stays flat on long runs.
+ * <br>
+ * The history is changed by the thread that changes the world. The range of the generations can be read by any
+ * thread.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class GenerationHistory {
+    private final static int ENTRYSIZE = 48;                    // estimated size of an entry without its arrays
+    private final static int KEYFRAMEFACTOR = 4;
+    
+    private final long budget;
+    private int rows, wordsPerRow;
+    private long[] base;
+    private Entry[] entries;
+    private int first, size;
+    private long sinceKeyframe;
+    private int[] deltaIndex;
+    private long[] deltaWords;
+    private volatile long oldest, newest, cursor, memory;
+    
+    /**
+     * Creates a new empty history.
+     * @param budget The maximum memory of the history in bytes.
+     * @throws IllegalArgumentException The budget is not positive.
+     */
+    public GenerationHistory(final long budget) throws IllegalArgumentException {
+        if(budget <= 0) {
+            throw new IllegalArgumentException("The budget of the history must be positive");
+        }
+        this.budget = budget;
+        this.deltaIndex = new int[1024];
+        this.deltaWords = new long[1024];
+    }
+    
+    /**
+     * Get the maximum memory of the history.
+     * @return The budget in bytes.
+     */
+    public long getBudget() {
+        return budget;
+    }
+    
+    /**
+     * Get the memory of the stored generations. This includes one full copy of the generation at the cursor.
+     * @return The memory in bytes.
+     */
+    public long getMemoryUsage() {
+        return memory;
+    }
+    
+    /**
+     * Get the oldest generation that is stored.
+     * @return The generation counter of the oldest generation.
+     */
+    public long getOldestGeneration() {
+        return oldest;
+    }
+    
+    /**
+     * Get the newest generation that is stored.
+     * @return The generation counter of the newest generation.
+     */
+    public long getNewestGeneration() {
+        return newest;
+    }
+    
+    /**
+     * Get the generation at the cursor.
+     * @return The generation counter of the cursor.
+     */
+    public long getCurrentGeneration() {
+        return cursor;
+    }
+    
+    /**
+     * Check if a generation is stored.
+     * @param generation The generation counter.
+     * @return True if the generation can be restored.
+     */
+    public boolean contains(final long generation) {
+        return base != null && generation >= oldest && generation <= newest;
+    }
+    
+    /**
+     * Record a generation. If the generation follows the cursor, the delta to the cursor is stored. Otherwise,
+     * e.g. if the world was killed or resized, the history is cleared and starts with a keyframe of the
+     * generation.
+     * @param grid The grid of the generation.
+     * @param generation The generation counter.
+     */
+    void record(final BitGrid grid, final long generation) {
+        final int total;
+        int n = 0;
+        
+        if(base == null || grid.getRows() != rows || grid.getWordsPerRow() != wordsPerRow
+                || generation != cursor + 1) {
+            reset(grid, generation);
+            return;
+        }
+        while(newest > cursor) {                                // the generations after the cursor are replaced
+            memory -= removeLast().getMemory();
+            newest--;
+        }
+        
+        total = base.length;
+        for(int x = 0; x < rows; x++) {
+            final long[] r = grid.getRow(x);
+            final long[] mask = grid.getInnerMask();
+            for(int w = 0, i = x * wordsPerRow; w < wordsPerRow; w++, i++) {
+                final long d = (r[w] & mask[w]) ^ base[i];
+                if(d != 0) {
+                    if(n == deltaIndex.length) {
+                        deltaIndex = Arrays.copyOf(deltaIndex, n * 2);
+                        deltaWords = Arrays.copyOf(deltaWords, n * 2);
+                    }
+                    base[i] ^= d;
+                    deltaIndex[n] = i;
+                    deltaWords[n++] = d;
+                }
+            }
+        }
+        
+        final Entry e;
+        if(n * 3L > total * 2L) {                               // a dense delta is smaller than a sparse one
+            final long[] dense = new long[total];
+            for(int k = 0; k < n; k++) {
+                dense[deltaIndex[k]] = deltaWords[k];
+            }
+            e = new Entry(null, dense);
+        } else {
+            e = new Entry(Arrays.copyOf(deltaIndex, n), Arrays.copyOf(deltaWords, n));
+        }
+        sinceKeyframe += n;
+        if(sinceKeyframe >= (long) KEYFRAMEFACTOR * total) {
+            e.keyframe = base.clone();
+            sinceKeyframe = 0;
+        }
+        add(e);
+        newest = generation;
+        cursor = generation;
+        evict();
+    }
+    
+    /**
+     * Copy the generation at the cursor into a grid. This undoes the changes of the grid since the generation was
+     * recorded or restored.
+     * @param grid The grid of the world.
+     */
+    void restore(final BitGrid grid) {
+        for(int x = 0; x < rows; x++) {
+            System.arraycopy(base, x * wordsPerRow, grid.getRow(x), 0, wordsPerRow);
+        }
+    }
+    
+    /**
+     * Move the cursor to a generation and change the grid of the world to this generation. The grid has to be
+     * the generation at the cursor. The deltas between the cursor and the generation are applied, unless it is
+     * cheaper to copy a keyframe and apply the deltas after the keyframe.
+     * @param generation The generation counter.
+     * @param grid The grid of the world.
+     * @param dirty The dirty regions of the world or null.
+     * @return True if the generation was restored, false if it is not stored.
+     */
+    boolean seek(final long generation, final BitGrid grid, final DirtyRegions dirty) {
+        long chainCost = 0, keyframeCost = base.length;
+        long key = generation;
+        
+        if(!contains(generation)) {
+            return false;
+        }
+        for(long g = Math.min(cursor, generation) + 1; g <= Math.max(cursor, generation); g++) {
+            chainCost += get(g).getLength();
+        }
+        while(key > oldest && get(key).keyframe == null) {
+            keyframeCost += get(key--).getLength();
+        }
+        if(get(key).keyframe != null && keyframeCost < chainCost) {
+            System.arraycopy(get(key).keyframe, 0, base, 0, base.length);
+            restore(grid);
+            if(dirty != null) {
+                dirty.markAll();
+            }
+            cursor = key;
+        }
+        while(cursor < generation) {
+            apply(get(++cursor), grid, dirty);
+        }
+        while(cursor > generation) {
+            apply(get(cursor--), grid, dirty);
+        }
+        return true;
+    }
+    
+    /**
+     * Clear the history and store a keyframe of a generation.
+     * @param grid The grid of the generation.
+     * @param generation The generation counter.
+     */
+    private void reset(final BitGrid grid, final long generation) {
+        final long[] mask = grid.getInnerMask();
+        final Entry e;
+        
+        rows = grid.getRows();
+        wordsPerRow = grid.getWordsPerRow();
+        base = new long[rows * wordsPerRow];
+        for(int x = 0; x < rows; x++) {
+            final long[] r = grid.getRow(x);
+            for(int w = 0; w < wordsPerRow; w++) {
+                base[x * wordsPerRow + w] = r[w] & mask[w];
+            }
+        }
+        entries = new Entry[16];
+        first = 0;
+        size = 0;
+        memory = base.length * 8L;
+        sinceKeyframe = 0;
+        e = new Entry(new int[0], new long[0]);
+        e.keyframe = base.clone();
+        add(e);
+        oldest = generation;
+        newest = generation;
+        cursor = generation;
+    }
+    
+    /**
+     * Evict the oldest generations until the memory is within the budget. The newest generation is never
+     * evicted. The delta of the oldest generation is dropped, because the generation before is gone.
+     */
+    private void evict() {
+        while(memory > budget && size > 1) {
+            memory -= entries[first].getMemory();
+            entries[first] = null;
+            first = (first + 1) % entries.length;
+            size--;
+            oldest++;
+            
+            final Entry e = entries[first];
+            memory -= e.getMemory();
+            e.index = new int[0];
+            e.words = new long[0];
+            memory += e.getMemory();
+        }
+    }
+    
+    /**
+     * Apply a delta to the generation at the cursor and to the grid of the world.
+     * @param e The entry of the delta.
+     * @param grid The grid of the world.
+     * @param dirty The dirty regions of the world or null.
+     */
+    private void apply(final Entry e, final BitGrid grid, final DirtyRegions dirty) {
+        final int n = e.index != null ? e.index.length : e.words.length;
+        
+        for(int k = 0; k < n; k++) {
+            final int i = e.index != null ? e.index[k] : k;
+            final long d = e.words[k];
+            if(d != 0) {
+                final int x = i / wordsPerRow;
+                final int w = i - x * wordsPerRow;
+                base[i] ^= d;
+                grid.getRow(x)[w] ^= d;
+                if(dirty != null) {
+                    dirty.mark(x, w * 64);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Get the entry of a stored generation.
+     * @param generation The generation counter.
+     * @return The entry.
+     */
+    private Entry get(final long generation) {
+        return entries[(int) ((first + generation - oldest) % entries.length)];
+    }
+    
+    /**
+     * Append an entry. The ring buffer is grown if it is full.
+     * @param e The entry.
+     */
+    private void add(final Entry e) {
+        if(size == entries.length) {
+            final Entry[] n = new Entry[size * 2];
+            for(int k = 0; k < size; k++) {
+                n[k] = entries[(first + k) % size];
+            }
+            entries = n;
+            first = 0;
+        }
+        entries[(first + size++) % entries.length] = e;
+        memory += e.getMemory();
+    }
+    
+    /**
+     * Remove the newest entry.
+     * @return The removed entry.
+     */
+    private Entry removeLast() {
+        final int k = (first + --size) % entries.length;
+        final Entry e = entries[k];
+        
+        entries[k] = null;
+        return e;
+    }
+    
+    /**
+     * This class provides the stored data of a generation. The delta is sparse, a list of word indices and XOR
+     * words, or dense, an XOR word for every word of the grid.
+     */
+    private static class Entry {
+        private int[] index;
+        private long[] words;
+        private long[] keyframe;
+        
+        /**
+         * Creates a new entry.
+         * @param index The word indices of a sparse delta or null if the delta is dense.
+         * @param words The XOR words of the delta.
+         */
+        Entry(final int[] index, final long[] words) {
+            this.index = index;
+            this.words = words;
+        }
+        
+        /**
+         * Get the number of words of the delta.
+         * @return The number of words.
+         */
+        int getLength() {
+            return words.length;
+        }
+        
+        /**
+         * Get the estimated memory of the entry.
+         * @return The memory in bytes.
+         */
+        long getMemory() {
+            return ENTRYSIZE + (index != null ? index.length * 4L : 0) + words.length * 8L
+                    + (keyframe != null ? keyframe.length * 8L : 0);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package ch.windmill.gameOfLife;
+
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class provides an immutable snapshot of a completed generation. A world publishes snapshots of its grid, so
+ * a thread that draws the world always sees a consistent generation while another thread evolves it. The grid of
+ * a snapshot is a copy, it is never written after the snapshot was created.
+ * <br>
+ * A snapshot also has the regions that were changed since the snapshot before, so a reader only has to redraw
+ * these regions. A world publishes a new snapshot only after the last one was read, so a reader sees every
+ * snapshot and doesnt miss a region.
+ * <br>
+ * If the world detects cycles, the snapshot has the period and the first generation of the cycle.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class GenerationSnapshot {
+    private final BitGrid grid;
+    private final long generation, period, stableGeneration;
+    private final int population, births, deaths, cellSize;
+    private final List<Rectangle> regions;
+    
+    /**
+     * Creates a new snapshot. The grid is copied.
+     * @param grid The grid of the generation.
+     * @param generation The generation counter of the world.
+     * @param population The number of alive cells.
+     * @param births The number of cells that were born in the last generation.
+     * @param deaths The number of cells that died in the last generation.
+     * @param cellSize The size of the cells in pixels.
+     * @param regions The regions that were changed since the snapshot before, null if every cell has changed.
+     * @param cycles The cycle detector of the world or null if the detection is disabled.
+     */
+    GenerationSnapshot(final BitGrid grid, final long generation, final int population, final int births,
+            final int deaths, final int cellSize, final List<Rectangle> regions, final CycleDetector cycles) {
+        this.grid = new BitGrid(grid.getRows(), grid.getColumns());
+        this.grid.copyFrom(grid);
+        this.generation = generation;
+        this.population = population;
+        this.births = births;
+        this.deaths = deaths;
+        this.cellSize = cellSize;
+        this.period = cycles != null ? cycles.getPeriod() : 0;
+        this.stableGeneration = cycles != null ? cycles.getStableGeneration() : -1;
+        this.regions = regions != null ? Collections.unmodifiableList(regions)
+                : Collections.singletonList(new Rectangle(0, 0, grid.getRows(), grid.getColumns()));
+    }
+    
+    /**
+     * The generation counter of the world when the snapshot was created.
+     * @return The generation counter.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * The period of the world, if the world is a still life or an oscillator.
+     * @return The period or 0 if no period was detected.
+     */
+    public long getPeriod() {
+        return period;
+    }
+    
+    /**
+     * The first generation of the cycle, if the world is a still life or an oscillator.
+     * @return The generation counter or -1 if no period was detected.
+     */
+    public long getStableGeneration() {
+        return stableGeneration;
+    }
+    
+    /**
+     * The number of alive cells.
+     * @return The number of alive cells.
+     */
+    public int getPopulation() {
+        return population;
+    }
+    
+    /**
+     * The number of cells that were born in the last generation.
+     * @return The number of births.
+     */
+    public int getBirths() {
+        return births;
+    }
+    
+    /**
+     * The number of cells that died in the last generation.
+     * @return The number of deaths.
+     */
+    public int getDeaths() {
+        return deaths;
+    }
+    
+    /**
+     * The size of the x axis.
+     * @return The size of the x axis.
+     */
+    public int getXAxis() {
+        return grid.getRows();
+    }
+    
+    /**
+     * The size of the y axis.
+     * @return The size of the y axis.
+     */
+    public int getYAxis() {
+        return grid.getColumns();
+    }
+    
+    /**
+     * The size of the cells in pixels.
+     * @return The cell size.
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+    
+    /**
+     * Get the regions that were changed since the snapshot before. The regions are rectangles in cell
+     * coordinates.
+     * @return The changed regions.
+     */
+    public List<Rectangle> getDirtyRegions() {
+        return regions;
+    }
+    
+    /**
+     * Check if the cell with the coordinates x and y is alive.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return True if the cell is alive, otherwise false.
+     */
+    public boolean isAlive(final int x, final int y) {
+        return grid.get(x, y);
+    }
+    
+    /**
+     * Get the grid of the snapshot. The grid must not be changed.
+     * @return The grid.
+     */
+    BitGrid getGrid() {
+        return grid;
+    }
+}
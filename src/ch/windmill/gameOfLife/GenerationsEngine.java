@@ -0,0 +1,112 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides the engine to evolve cells of a <code>gameOfLife.GenerationsRule</code>. The cells are
+ * stored in a <code>gameOfLife.ByteGrid</code>, one byte per cell.
+ * <br>
+ * The inner loop is table-driven. The living cells of each column of three rows are counted with a sliding
+ * window like in <code>gameOfLife.LifeEngine</code>, the sum of three columns is the number of living cells in the
+ * neighbourhood of 3x3 cells. The state of the cell and this sum select the next state in a lookup table of 4096
+ * bytes, so the loop has no branches on the rule. The engine doesnt allocate objects while evolving a generation.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class GenerationsEngine {
+    private final static byte[] ALIVE = new byte[GenerationsRule.MAXSTATES];
+    
+    static {
+        ALIVE[1] = 1;
+    }
+    
+    private GenerationsRule rule;
+    private byte[] table;
+    
+    /**
+     * Creates a new engine object. This constructor invokes the main constructor with the default parameter
+     * <code>GenerationsRule.BRIANS_BRAIN</code>.
+     */
+    public GenerationsEngine() {
+        this(GenerationsRule.BRIANS_BRAIN);
+    }
+    
+    /**
+     * Creates a new engine object.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public GenerationsEngine(final GenerationsRule rule) {
+        setRule(rule);
+    }
+    
+    /**
+     * 
+     * @return Get the compiled rule.
+     */
+    public GenerationsRule getRule() {
+        return rule;
+    }
+    
+    /**
+     * Set a new compiled rule. The lookup table of the engine will be rebuilt.
+     * @param rule The compiled rule.
+     */
+    public void setRule(final GenerationsRule rule) {
+        this.rule = rule;
+        this.table = rule.toTable();
+    }
+    
+    /**
+     * Calculate a new generation of cells in a grid. The border of the current grid is read as the neighbourhood
+     * of the outer cells. This method writes the results into the next grid.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @return The number of living cells in the next generation.
+     */
+    public int evolve(final ByteGrid current, final ByteGrid next) {
+        return evolveRows(current, next, 0, current.getRows());
+    }
+    
+    /**
+     * Calculate the next generation of a band of rows. Only the rows from the index from to the index to
+     * (exclusive) are written into the next grid. The engine reads the current grid only, so bands can be
+     * calculated by several threads at the same time.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @return The number of living cells in the written rows of the next generation.
+     */
+    public int evolveRows(final ByteGrid current, final ByteGrid next, final int from, final int to) {
+        final byte[] c = current.getCells(), n = next.getCells();
+        final byte[] table = this.table, alive = ALIVE;
+        final int stride = current.getStride(), columns = current.getColumns();
+        int population = 0;
+        
+        for(int i = from; i < to; i++) {                                  // check the current generation (X axis)
+            final int row = (i + 1) * stride;
+            int left = columnSum(c, alive, row, stride);
+            int middle = columnSum(c, alive, row + 1, stride);
+            
+            for(int p = row + 1, end = row + columns; p <= end; p++) {    // check the current generation (Y axis)
+                final int right = columnSum(c, alive, p + 1, stride);
+                final byte state = table[(c[p] & 0xff) << 4 | (left + middle + right)];
+                n[p] = state;
+                population += alive[state & 0xff];
+                left = middle;
+                middle = right;
+            }
+        }
+        return population;
+    }
+    
+    /**
+     * Count the living cells of a column in three rows.
+     * @param c The cells.
+     * @param alive The table of the living states.
+     * @param p The index of the cell in the middle row.
+     * @param stride The stride of the grid.
+     * @return The number of living cells from 0 to 3.
+     */
+    private static int columnSum(final byte[] c, final byte[] alive, final int p, final int stride) {
+        return alive[c[p - stride] & 0xff] + alive[c[p] & 0xff] + alive[c[p + stride] & 0xff];
+    }
+}
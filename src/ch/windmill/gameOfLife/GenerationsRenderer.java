@@ -0,0 +1,161 @@
+package ch.windmill.gameOfLife;
+
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+/**
+ * This class provides an offscreen renderer of a <code>gameOfLife.GenerationsWorld</code>. Like a
+ * <code>gameOfLife.WorldRenderer</code>, the cells are written straight into the int array of a
+ * <code>BufferedImage</code>.
+ * <br>
+ * The color of a cell is looked up in a palette of 256 colors, one for each state. The dead and the living state
+ * have the colors of a <code>gameOfLife.Cell</code>, the dying states fade from the dying color to the dead
+ * color. The palette is rebuilt if the number of states of the rule changes.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class GenerationsRenderer {
+    public final static Color DYING = new Color(200, 60, 30);
+    
+    private final GenerationsWorld world;
+    private final Color dying;
+    private final int background;
+    private final int[] palette;
+    private int states;
+    private BufferedImage image;
+    private int[] pixels;
+    private int cellSize;
+    
+    /**
+     * Creates a new renderer. This constructor invokes the main constructor with the default dying color and the
+     * default background color.
+     * @param world The world to render.
+     */
+    public GenerationsRenderer(final GenerationsWorld world) {
+        this(world, DYING, WorldRenderer.BACKGROUND);
+    }
+    
+    /**
+     * Creates a new renderer. The image is created with the first frame.
+     * @param world The world to render.
+     * @param dying The color of the first dying state.
+     * @param background The color of the gaps between the cells.
+     */
+    public GenerationsRenderer(final GenerationsWorld world, final Color dying, final Color background) {
+        this.world = world;
+        this.dying = dying;
+        this.background = background.getRGB();
+        palette = new int[GenerationsRule.MAXSTATES];
+    }
+    
+    /**
+     * Get the image of the last frame. The image is reused by the next frame.
+     * @return The image or null if no frame was rendered.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+    
+    /**
+     * Get the color of a state.
+     * @param state The state.
+     * @return The RGB value of the color.
+     */
+    public int getColor(final int state) {
+        checkPalette();
+        return palette[state & 0xff];
+    }
+    
+    /**
+     * Render the current generation of the world into the image with the given cell size. A new image is created
+     * if the size of the world or the cell size has changed.
+     * @param cs The size of the cells in pixels.
+     * @return The image.
+     */
+    public BufferedImage render(final int cs) {
+        final ByteGrid grid = world.getGrid();
+        final byte[] cells = grid.getCells();
+        final int stride = grid.getStride();
+        final int xAxis = world.getXAxis(), yAxis = world.getYAxis();
+        final int size = cs > 1 ? cs - 1 : 1;
+        
+        checkPalette();
+        checkImage(xAxis, yAxis, cs);
+        final int width = image.getWidth();
+        for(int j = 0; j < yAxis; j++) {
+            final int first = j * cs * width;
+            int p = first;
+            
+            for(int i = 0, c = stride + j + 1; i < xAxis; i++, c += stride) {
+                final int color = palette[cells[c] & 0xff];
+                for(int k = 0; k < size; k++) {
+                    pixels[p++] = color;
+                }
+                if(cs > 1) {
+                    pixels[p++] = background;
+                }
+            }
+            for(int k = 1; k < size; k++) {
+                System.arraycopy(pixels, first, pixels, first + k * width, width);
+            }
+            if(cs > 1) {
+                final int gap = first + (cs - 1) * width;
+                Arrays.fill(pixels, gap, gap + width, background);
+            }
+        }
+        return image;
+    }
+    
+    /**
+     * Rebuild the palette if the number of states of the rule has changed. The dying state k of n states has the
+     * color of the dying color mixed with the dead color by the ratio (k - 2) / (n - 2).
+     */
+    private void checkPalette() {
+        final int n = world.getRule().getStates();
+        
+        if(n == states) {
+            return;
+        }
+        final Color dead = Cell.COLORDEAD;
+        palette[0] = dead.getRGB();
+        palette[1] = Cell.COLORALIVE.getRGB();
+        for(int k = 2; k < n; k++) {
+            final double t = (double) (k - 2) / (n - 2);
+            palette[k] = new Color(mix(dying.getRed(), dead.getRed(), t), mix(dying.getGreen(), dead.getGreen(), t),
+                    mix(dying.getBlue(), dead.getBlue(), t)).getRGB();
+        }
+        Arrays.fill(palette, n, palette.length, palette[0]);
+        states = n;
+    }
+    
+    /**
+     * Mix two color components.
+     * @param a The first component.
+     * @param b The second component.
+     * @param t The ratio of the second component.
+     * @return The mixed component.
+     */
+    private static int mix(final int a, final int b, final double t) {
+        return (int) Math.round(a + (b - a) * t);
+    }
+    
+    /**
+     * Create a new image if the image doesnt match the size of the world.
+     * @param xAxis The size of the x axis.
+     * @param yAxis The size of the y axis.
+     * @param cs The size of the cells in pixels.
+     */
+    private void checkImage(final int xAxis, final int yAxis, final int cs) {
+        final int width = xAxis * cs;
+        final int height = yAxis * cs;
+        
+        if(image != null && cs == cellSize && image.getWidth() == width && image.getHeight() == height) {
+            return;
+        }
+        cellSize = cs;
+        image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+}
@@ -0,0 +1,228 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a compiled rule of the Generations family. A cell has one of n states: the state 0 is dead,
+ * the state 1 is alive and the states from 2 to n-1 are dying. Only the living cells are counted as neighbours.
+ * A dead cell is born like a dead cell of an outer-totalistic rule. A living cell remains alive if its number of
+ * living neighbours is in the remain mask, otherwise it starts to die. A dying cell always moves to the next state
+ * and is dead after the state n-1. A rule with 2 states is an outer-totalistic rule.
+ * <br>
+ * A rule can be parsed from a rule string in the S/B/C notation, e.g. "/2/3" for Brian's Brain or "345/2/4" for
+ * Star Wars, or in the B/S/C notation, e.g. "B2/S/C3".
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class GenerationsRule {
+    public final static GenerationsRule BRIANS_BRAIN = new GenerationsRule(1 << 2, 0, 3);
+    public final static GenerationsRule STAR_WARS = new GenerationsRule(1 << 2, 1 << 3 | 1 << 4 | 1 << 5, 4);
+    public final static int MAXSTATES = 256;
+    
+    private final int birth, remain, states;
+    
+    /**
+     * Creates a new rule object.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @param states The number of states, including the dead and the living state.
+     * @throws IllegalArgumentException A mask has more than 9 bits or the number of states is not between 2 and
+     * 256.
+     */
+    public GenerationsRule(final int birth, final int remain, final int states) throws IllegalArgumentException {
+        if((birth & ~0x1ff) != 0 || (remain & ~0x1ff) != 0) {
+            throw new IllegalArgumentException("A rule mask must have 9 bits");
+        }
+        if(states < 2 || states > MAXSTATES) {
+            throw new IllegalArgumentException("The number of states must be between 2 and "+MAXSTATES);
+        }
+        this.birth = birth;
+        this.remain = remain;
+        this.states = states;
+    }
+    
+    /**
+     * Creates a new rule object with the masks of an outer-totalistic rule.
+     * @param rule The outer-totalistic rule.
+     * @param states The number of states, including the dead and the living state.
+     * @throws IllegalArgumentException The number of states is not between 2 and 256.
+     */
+    public GenerationsRule(final Rule rule, final int states) throws IllegalArgumentException {
+        this(rule.getBirthMask(), rule.getRemainMask(), states);
+    }
+    
+    /**
+     * Parse a rule string. The S/B/C notation "345/2/4" and the B/S/C notation "B2/S/C3" are supported, the
+     * letter G can be used instead of C. Letters can be upper or lower case.
+     * @param s The rule string.
+     * @return The compiled rule.
+     * @throws IllegalArgumentException The rule string is not valid.
+     */
+    public static GenerationsRule parse(final String s) throws IllegalArgumentException {
+        final String r = s.trim().toUpperCase();
+        final String[] parts = r.split("/", -1);
+        int b = 0, sv = 0, c = -1;
+        
+        if(parts.length != 3) {
+            throw new IllegalArgumentException("Invalid rule string: "+s);
+        }
+        if(r.indexOf('B') >= 0 || r.indexOf('S') >= 0) {           // B/S/C notation
+            for(String part : parts) {
+                if(part.isEmpty()) {
+                    throw new IllegalArgumentException("Invalid rule string: "+s);
+                }
+                final String d = part.substring(1);
+                switch(part.charAt(0)) {
+                    case 'B':
+                        b = digits(d, s);
+                        break;
+                    case 'S':
+                        sv = digits(d, s);
+                        break;
+                    case 'C': case 'G':
+                        c = states(d, s);
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Invalid rule string: "+s);
+                }
+            }
+            if(c < 0) {
+                throw new IllegalArgumentException("Invalid rule string: "+s);
+            }
+        } else {                                                    // S/B/C notation
+            sv = digits(parts[0], s);
+            b = digits(parts[1], s);
+            c = states(parts[2], s);
+        }
+        
+        return new GenerationsRule(b, sv, c);
+    }
+    
+    /**
+     * Convert a string of neighbour counts into a bit mask.
+     * @param d The digits.
+     * @param s The whole rule string for the error message.
+     * @return The bit mask.
+     * @throws IllegalArgumentException A character is not a digit between 0 and 8.
+     */
+    private static int digits(final String d, final String s) throws IllegalArgumentException {
+        int mask = 0;
+        for(char c : d.toCharArray()) {
+            if(c < '0' || c > '8') {
+                throw new IllegalArgumentException("Invalid rule string: "+s);
+            }
+            mask |= 1 << (c - '0');
+        }
+        return mask;
+    }
+    
+    /**
+     * Convert a string into the number of states.
+     * @param d The number.
+     * @param s The whole rule string for the error message.
+     * @return The number of states.
+     * @throws IllegalArgumentException The string is not a number.
+     */
+    private static int states(final String d, final String s) throws IllegalArgumentException {
+        try {
+            return Integer.parseInt(d);
+        } catch(NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid rule string: "+s);
+        }
+    }
+    
+    /**
+     * 
+     * @return The bit mask of the birth rules.
+     */
+    public int getBirthMask() {
+        return birth;
+    }
+    
+    /**
+     * 
+     * @return The bit mask of the remain rules.
+     */
+    public int getRemainMask() {
+        return remain;
+    }
+    
+    /**
+     * 
+     * @return The number of states, including the dead and the living state.
+     */
+    public int getStates() {
+        return states;
+    }
+    
+    /**
+     * Get the outer-totalistic rule with the same birth and remain masks.
+     * @return The rule of the living cells.
+     */
+    public Rule toRule() {
+        return new Rule(birth, remain);
+    }
+    
+    /**
+     * Calculate the next state of a cell.
+     * @param state The state of the cell.
+     * @param n The number of living neighbours.
+     * @return The state in the next generation.
+     */
+    public int next(final int state, final int n) {
+        if(state == 0) {
+            return ((birth >>> n) & 1) != 0 ? 1 : 0;
+        }
+        if(state == 1 && ((remain >>> n) & 1) != 0) {
+            return 1;
+        }
+        return state + 1 < states ? state + 1 : 0;
+    }
+    
+    /**
+     * Create a lookup table with 16 entries for each of the 256 possible states. The index of the table is the
+     * state shifted left by 4 bits plus the number of living cells in the neighbourhood of 3x3 cells, which
+     * includes the cell itself. The states that are not used by this rule are dead in the next generation.
+     * @return The lookup table.
+     */
+    public byte[] toTable() {
+        final byte[] table = new byte[MAXSTATES << 4];
+        for(int s = 0; s < states; s++) {
+            final int self = s == 1 ? 1 : 0;
+            for(int n = 0; n < 9; n++) {
+                table[s << 4 | (n + self)] = (byte) next(s, n);
+            }
+        }
+        return table;
+    }
+    
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof GenerationsRule && ((GenerationsRule) o).birth == birth
+                && ((GenerationsRule) o).remain == remain && ((GenerationsRule) o).states == states;
+    }
+    
+    @Override
+    public int hashCode() {
+        return (states << 18) | (birth << 9) | remain;
+    }
+    
+    /**
+     * Create the rule string in the S/B/C notation.
+     * @return The rule string, e.g. "345/2/4".
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder();
+        for(int n = 0; n < 9; n++) {
+            if((remain & (1 << n)) != 0) {
+                sb.append(n);
+            }
+        }
+        sb.append('/');
+        for(int n = 0; n < 9; n++) {
+            if((birth & (1 << n)) != 0) {
+                sb.append(n);
+            }
+        }
+        return sb.append('/').append(states).toString();
+    }
+}
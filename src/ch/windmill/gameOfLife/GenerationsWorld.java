@@ -0,0 +1,60 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a world of cells with more than two states, which are evolved by a
+ * <code>gameOfLife.GenerationsEngine</code>. The cells and the generations are managed by the
+ * <code>gameOfLife.ByteGridWorld</code>.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class GenerationsWorld extends ByteGridWorld {
+    private final GenerationsEngine engine;
+    
+    /**
+     * Creates a new world object. This constructor invokes the main constructor with the default parameter
+     * <code>GenerationsRule.BRIANS_BRAIN</code>.
+     * @param xAxis The number of cells in the x axis.
+     * @param yAxis The number of cells in the y axis.
+     */
+    public GenerationsWorld(final int xAxis, final int yAxis) {
+        this(xAxis, yAxis, GenerationsRule.BRIANS_BRAIN);
+    }
+    
+    /**
+     * Creates a new world object. All cells are dead.
+     * @param xAxis The number of cells in the x axis.
+     * @param yAxis The number of cells in the y axis.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public GenerationsWorld(final int xAxis, final int yAxis, final GenerationsRule rule) {
+        super(xAxis, yAxis);
+        engine = new GenerationsEngine(rule);
+    }
+    
+    /**
+     * 
+     * @return Get the compiled rule.
+     */
+    public GenerationsRule getRule() {
+        return engine.getRule();
+    }
+    
+    /**
+     * Set a new compiled rule. The cells with a state that the new rule doesnt have are killed.
+     * @param rule The compiled rule.
+     */
+    public void setRule(final GenerationsRule rule) {
+        engine.setRule(rule);
+        removeStates(rule.getStates());
+    }
+    
+    @Override
+    protected int getStates() {
+        return engine.getRule().getStates();
+    }
+    
+    @Override
+    protected int evolveRows(final ByteGrid current, final ByteGrid next, final int from, final int to) {
+        return engine.evolveRows(current, next, from, to);
+    }
+}
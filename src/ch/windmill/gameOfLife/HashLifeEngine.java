@@ -0,0 +1,577 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a HashLife engine. The generation is stored in a quadtree. Every node of the quadtree is
+ * canonicalized in a hash table, so equal parts of the world are stored once. A node memoizes its result, that
+ * is its centre advanced by a power of two generations. This allows to jump 2^k generations in one step.
+ * <br>
+ * The engine simulates an unbounded world, cells are not limited by the size of a <code>gameOfLife.World</code>.
+ * The rules of a <code>gameOfLife.Rule</code> are supported if they don't birth cells with 0 living
+ * neighbours, because these rules would fill the infinite empty space.
+ * <br>
+ * The number of nodes in the hash table is limited by the node cache size. If the table has more nodes after a
+ * step, the unused nodes are collected. A single step can exceed the limit temporarily.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class HashLifeEngine {
+    private final static int DEFAULTMAXNODES = 1 << 20;
+    private final static int MINLEVEL = 3;
+    
+    private final Node off, on;
+    private Node[] table;
+    private Node[] empty;
+    private Node root;
+    private Rule rule;
+    private int birth, remain, nodeCount, maxNodes;
+    private long generation;
+    
+    /**
+     * Creates a new HashLife engine object. This constructor invokes the main constructor with the default
+     * parameter <code>RuleSet.CONWAY</code>.
+     */
+    public HashLifeEngine() {
+        this(RuleSet.CONWAY);
+    }
+    
+    /**
+     * Creates a new HashLife engine object. This constructor invokes the main constructor with the default
+     * node cache size.
+     * @param rules Set of rules to define the evolve process.
+     */
+    public HashLifeEngine(final RuleSet rules) {
+        this(rules, DEFAULTMAXNODES);
+    }
+    
+    /**
+     * Creates a new HashLife engine object. This constructor invokes the main constructor with the default
+     * node cache size.
+     * @param rule The compiled rule to define the evolve process.
+     * @throws IllegalArgumentException The rule is not supported.
+     */
+    public HashLifeEngine(final Rule rule) throws IllegalArgumentException {
+        this(rule, DEFAULTMAXNODES);
+    }
+    
+    /**
+     * Creates a new HashLife engine object. The world of the engine is empty.
+     * @param rules Set of rules to define the evolve process.
+     * @param maxNodes The maximum number of nodes in the hash table.
+     * @throws IllegalArgumentException The rules are not supported.
+     */
+    public HashLifeEngine(final RuleSet rules, final int maxNodes) throws IllegalArgumentException {
+        this(rules.getRule(), maxNodes);
+    }
+    
+    /**
+     * Creates a new HashLife engine object. The world of the engine is empty.
+     * @param rule The compiled rule to define the evolve process.
+     * @param maxNodes The maximum number of nodes in the hash table.
+     * @throws IllegalArgumentException The rule is not supported.
+     */
+    public HashLifeEngine(final Rule rule, final int maxNodes) throws IllegalArgumentException {
+        off = new Node(0, 0, 0x2545f491);
+        on = new Node(0, 1, 0x4f6cdd1d);
+        this.maxNodes = maxNodes;
+        table = new Node[1 << 10];
+        empty = new Node[64];
+        empty[0] = off;
+        setRule(rule);
+    }
+    
+    /**
+     * 
+     * @return Get the rules or null if the rule of the engine is not a ruleset.
+     */
+    public RuleSet getRules() {
+        return rule.toRuleSet();
+    }
+    
+    /**
+     * 
+     * @return Get the compiled rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
+    
+    /**
+     * Set a new ruleset. This method invokes the method <code>setRule</code>.
+     * @param rules The reference to the ruleset.
+     * @throws IllegalArgumentException The rules birth cells with 0 living neighbours.
+     */
+    public void setRules(final RuleSet rules) throws IllegalArgumentException {
+        setRule(rules.getRule());
+    }
+    
+    /**
+     * Set a new compiled rule. The memoized results are calculated with the old rule, so every result is
+     * removed from the hash table. The current generation is kept.
+     * @param rule The compiled rule.
+     * @throws IllegalArgumentException The rule births cells with 0 living neighbours.
+     */
+    public void setRule(final Rule rule) throws IllegalArgumentException {
+        if((rule.getBirthMask() & 1) != 0) {
+            throw new IllegalArgumentException("HashLife doesnt support rules with birth on 0 neighbours: "+rule);
+        }
+        this.rule = rule;
+        birth = rule.getBirthMask();
+        remain = rule.getRemainMask();
+        
+        if(root != null) {
+            for(Node n : table) {
+                for(; n != null; n = n.chain) {
+                    n.result = null;
+                }
+            }
+        } else {
+            root = emptyNode(MINLEVEL);
+        }
+    }
+    
+    /**
+     * The maximum number of nodes in the hash table.
+     * @return The node cache size.
+     */
+    public int getMaxNodes() {
+        return maxNodes;
+    }
+    
+    /**
+     * Set the maximum number of nodes in the hash table. The limit is checked after the next step.
+     * @param maxNodes The node cache size.
+     */
+    public void setMaxNodes(final int maxNodes) {
+        this.maxNodes = maxNodes;
+    }
+    
+    /**
+     * The number of nodes in the hash table.
+     * @return The number of nodes.
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+    
+    /**
+     * The number of generations since the last load.
+     * @return The generation counter.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * The number of alive cells. The population of the root node is memoized, so this method doesnt need to
+     * count cells.
+     * @return The number of alive cells.
+     */
+    public long getPopulation() {
+        return root.population;
+    }
+    
+    /**
+     * Load a generation from a grid. The cell (0, 0) of the grid is placed at the origin of the engine. The
+     * generation counter is reset.
+     * @param grid The grid to load.
+     */
+    public void load(final BitGrid grid) {
+        int level = MINLEVEL;
+        Node e;
+        
+        while((1L << (level-1)) < Math.max(grid.getRows(), grid.getColumns())) {
+            level++;
+        }
+        e = emptyNode(level-1);
+        root = join(e, e, e, build(grid, level-1, 0, 0));
+        generation = 0;
+        collectIfFull();
+    }
+    
+    /**
+     * Store the generation into a grid. Only the cells from (0, 0) to the size of the grid are stored, the
+     * other cells of the grid are killed.
+     * @param grid The grid to store into.
+     */
+    public void store(final BitGrid grid) {
+        final long half = 1L << (root.level-1);
+        
+        grid.clear();
+        store(grid, root, -half, -half);
+    }
+    
+    /**
+     * Advance the generation by 2^k generations. The root node is expanded until the pattern can not leave the
+     * result of the root.
+     * @param k The exponent of the number of generations.
+     */
+    public void step(final int k) {
+        while(root.level < k+3 || !isCentred(root)) {
+            expand();
+        }
+        root = successor(root, k);
+        generation += 1L << k;
+        collectIfFull();
+    }
+    
+    /**
+     * Advance the generation by the given number of generations. The number is split into powers of two, each
+     * power is one step of the engine.
+     * @param generations The number of generations.
+     */
+    public void advance(final long generations) {
+        for(int k = 0; k < 63; k++) {
+            if((generations & (1L << k)) != 0) {
+                step(k);
+            }
+        }
+    }
+    
+    /**
+     * Remove every node from the hash table that is not used by the current generation. Memoized results that
+     * point to removed nodes are cleared.
+     */
+    public void collectGarbage() {
+        mark(root);
+        for(Node e : empty) {
+            if(e != null) {
+                e.marked = true;
+            }
+        }
+        on.marked = true;
+        
+        for(Node n : table) {                                  // clear results of removed nodes
+            for(; n != null; n = n.chain) {
+                if(n.marked && n.result != null && !n.result.marked) {
+                    n.result = null;
+                }
+            }
+        }
+        
+        final Node[] old = table;
+        table = new Node[old.length];
+        nodeCount = 0;
+        for(Node n : old) {                                    // rebuild the table with the marked nodes
+            Node c = n;
+            while(c != null) {
+                final Node nextInChain = c.chain;
+                if(c.marked) {
+                    insert(c);
+                }
+                c = nextInChain;
+            }
+        }
+        
+        for(Node n : table) {
+            for(; n != null; n = n.chain) {
+                n.marked = false;
+            }
+        }
+        for(Node e : empty) {
+            if(e != null) {
+                e.marked = false;
+            }
+        }
+        off.marked = on.marked = false;
+    }
+    
+    /**
+     * Collect the unused nodes if the hash table has more nodes than the node cache size.
+     */
+    private void collectIfFull() {
+        if(nodeCount > maxNodes) {
+            collectGarbage();
+        }
+    }
+    
+    /**
+     * Mark a node and all of its children.
+     * @param n The node to mark.
+     */
+    private void mark(final Node n) {
+        if(!n.marked) {
+            n.marked = true;
+            if(n.level > 0) {
+                mark(n.nw);
+                mark(n.ne);
+                mark(n.sw);
+                mark(n.se);
+            }
+        }
+    }
+    
+    /**
+     * Build a node from the cells of a grid.
+     * @param grid The grid to read.
+     * @param level The level of the node.
+     * @param x The x position of the upper left cell.
+     * @param y The y position of the upper left cell.
+     * @return The canonical node.
+     */
+    private Node build(final BitGrid grid, final int level, final int x, final int y) {
+        if(x >= grid.getRows() || y >= grid.getColumns()) {
+            return emptyNode(level);
+        } else if(level == 0) {
+            return grid.get(x, y) ? on : off;
+        }
+        final int half = 1 << (level-1);
+        return join(build(grid, level-1, x, y), build(grid, level-1, x, y+half),
+                build(grid, level-1, x+half, y), build(grid, level-1, x+half, y+half));
+    }
+    
+    /**
+     * Write the alive cells of a node into a grid.
+     * @param grid The grid to write into.
+     * @param n The node.
+     * @param x The x position of the upper left cell.
+     * @param y The y position of the upper left cell.
+     */
+    private void store(final BitGrid grid, final Node n, final long x, final long y) {
+        final long size = 1L << n.level;
+        
+        if(n.population == 0 || x >= grid.getRows() || y >= grid.getColumns() || x+size <= 0 || y+size <= 0) {
+            return;
+        } else if(n.level == 0) {
+            grid.set((int) x, (int) y, true);
+            return;
+        }
+        final long half = size >>> 1;
+        store(grid, n.nw, x, y);
+        store(grid, n.ne, x, y+half);
+        store(grid, n.sw, x+half, y);
+        store(grid, n.se, x+half, y+half);
+    }
+    
+    /**
+     * Check if every alive cell of a node is in the centre square with the half size of the node centre.
+     * @param n The node to check.
+     * @return True if the node is centred.
+     */
+    private static boolean isCentred(final Node n) {
+        return n.nw.population == n.nw.se.se.population && n.ne.population == n.ne.sw.sw.population
+                && n.sw.population == n.sw.ne.ne.population && n.se.population == n.se.nw.nw.population;
+    }
+    
+    /**
+     * Expand the root node by one level. The old root is the centre of the new root.
+     */
+    private void expand() {
+        final Node e = emptyNode(root.level-1);
+        root = join(join(e, e, e, root.nw), join(e, e, root.ne, e), join(e, root.sw, e, e), join(root.se, e, e, e));
+    }
+    
+    /**
+     * Calculate the centre of a node advanced by 2^j generations. The value of j is limited to the level of the
+     * node minus 2. The result is memoized in the node.
+     * @param n The node with a level of at least 2.
+     * @param j The exponent of the number of generations.
+     * @return The centre node with the level of the node minus 1.
+     */
+    private Node successor(final Node n, final int j) {
+        final int step = Math.min(j, n.level-2);
+        Node s;
+        
+        if(n.result != null && n.resultStep == step) {
+            return n.result;
+        } else if(n.population == 0) {
+            s = emptyNode(n.level-1);
+        } else if(n.level == 2) {
+            s = life4x4(n);
+        } else {
+            // the nine overlapping sub nodes
+            final Node n00 = n.nw, n01 = centreHorizontal(n.nw, n.ne), n02 = n.ne;
+            final Node n10 = centreVertical(n.nw, n.sw), n11 = centre(n), n12 = centreVertical(n.ne, n.se);
+            final Node n20 = n.sw, n21 = centreHorizontal(n.sw, n.se), n22 = n.se;
+            
+            if(step < n.level-2) {                             // advance once, use the centres
+                final Node c00 = successor(n00, step), c01 = successor(n01, step), c02 = successor(n02, step);
+                final Node c10 = successor(n10, step), c11 = successor(n11, step), c12 = successor(n12, step);
+                final Node c20 = successor(n20, step), c21 = successor(n21, step), c22 = successor(n22, step);
+                s = join(join(c00.se, c01.sw, c10.ne, c11.nw), join(c01.se, c02.sw, c11.ne, c12.nw),
+                        join(c10.se, c11.sw, c20.ne, c21.nw), join(c11.se, c12.sw, c21.ne, c22.nw));
+            } else {                                           // advance twice for the full speed
+                final Node c00 = successor(n00, step), c01 = successor(n01, step), c02 = successor(n02, step);
+                final Node c10 = successor(n10, step), c11 = successor(n11, step), c12 = successor(n12, step);
+                final Node c20 = successor(n20, step), c21 = successor(n21, step), c22 = successor(n22, step);
+                s = join(successor(join(c00, c01, c10, c11), step), successor(join(c01, c02, c11, c12), step),
+                        successor(join(c10, c11, c20, c21), step), successor(join(c11, c12, c21, c22), step));
+            }
+        }
+        
+        n.result = s;
+        n.resultStep = step;
+        return s;
+    }
+    
+    /**
+     * Calculate the centre of a node with level 2 advanced by one generation.
+     * @param n The node with level 2.
+     * @return The centre node with level 1.
+     */
+    private Node life4x4(final Node n) {
+        int cells = 0;                                         // bit r*4+c is the cell in row r and column c
+        
+        cells |= bits(n.nw);
+        cells |= bits(n.ne) << 2;
+        cells |= bits(n.sw) << 8;
+        cells |= bits(n.se) << 10;
+        
+        return join(cell(cells, 1, 1), cell(cells, 1, 2), cell(cells, 2, 1), cell(cells, 2, 2));
+    }
+    
+    /**
+     * Get the cells of a node with level 1 as bits of a 4x4 square.
+     * @param n The node with level 1.
+     * @return The bits of the row 0 and 1 in the columns 0 and 1.
+     */
+    private static int bits(final Node n) {
+        return (int) (n.nw.population | n.ne.population << 1 | n.sw.population << 4 | n.se.population << 5);
+    }
+    
+    /**
+     * Calculate the next state of a cell in a 4x4 square.
+     * @param cells The bits of the square.
+     * @param r The row of the cell.
+     * @param c The column of the cell.
+     * @return The leaf node with the next state.
+     */
+    private Node cell(final int cells, final int r, final int c) {
+        int count = 0;
+        
+        for(int i = r-1; i <= r+1; i++) {
+            for(int k = c-1; k <= c+1; k++) {
+                count += (cells >>> (i*4+k)) & 1;
+            }
+        }
+        if(((cells >>> (r*4+c)) & 1) != 0) {
+            return ((remain >>> (count-1)) & 1) != 0 ? on : off;
+        }
+        return ((birth >>> count) & 1) != 0 ? on : off;
+    }
+    
+    /**
+     * Get the node between two horizontal neighbours.
+     * @param w The west node.
+     * @param e The east node.
+     * @return The centre node with the same level.
+     */
+    private Node centreHorizontal(final Node w, final Node e) {
+        return join(w.ne, e.nw, w.se, e.sw);
+    }
+    
+    /**
+     * Get the node between two vertical neighbours.
+     * @param n The north node.
+     * @param s The south node.
+     * @return The centre node with the same level.
+     */
+    private Node centreVertical(final Node n, final Node s) {
+        return join(n.sw, n.se, s.nw, s.ne);
+    }
+    
+    /**
+     * Get the centre of a node.
+     * @param n The node.
+     * @return The centre node with the level of the node minus 1.
+     */
+    private Node centre(final Node n) {
+        return join(n.nw.se, n.ne.sw, n.sw.ne, n.se.nw);
+    }
+    
+    /**
+     * Get the empty node of a level.
+     * @param level The level.
+     * @return The canonical empty node.
+     */
+    private Node emptyNode(final int level) {
+        if(empty[level] == null) {
+            final Node e = emptyNode(level-1);
+            empty[level] = join(e, e, e, e);
+        }
+        return empty[level];
+    }
+    
+    /**
+     * Get the canonical node with the given children.
+     * @param nw The north west child.
+     * @param ne The north east child.
+     * @param sw The south west child.
+     * @param se The south east child.
+     * @return The canonical node.
+     */
+    private Node join(final Node nw, final Node ne, final Node sw, final Node se) {
+        int h = nw.hash * 0x9e3779b1 + ne.hash;
+        h = h * 0x9e3779b1 + sw.hash;
+        h = h * 0x9e3779b1 + se.hash;
+        h ^= h >>> 15;
+        
+        for(Node n = table[h & (table.length-1)]; n != null; n = n.chain) {
+            if(n.nw == nw && n.ne == ne && n.sw == sw && n.se == se) {
+                return n;
+            }
+        }
+        
+        final Node n = new Node(nw.level+1, nw.population + ne.population + sw.population + se.population, h);
+        n.nw = nw;
+        n.ne = ne;
+        n.sw = sw;
+        n.se = se;
+        if(nodeCount >= table.length - (table.length >>> 2)) {
+            resize();
+        }
+        insert(n);
+        return n;
+    }
+    
+    /**
+     * Insert a node into the hash table.
+     * @param n The node.
+     */
+    private void insert(final Node n) {
+        final int i = n.hash & (table.length-1);
+        n.chain = table[i];
+        table[i] = n;
+        nodeCount++;
+    }
+    
+    /**
+     * Double the size of the hash table.
+     */
+    private void resize() {
+        final Node[] old = table;
+        table = new Node[old.length << 1];
+        nodeCount = 0;
+        for(Node n : old) {
+            Node c = n;
+            while(c != null) {
+                final Node nextInChain = c.chain;
+                insert(c);
+                c = nextInChain;
+            }
+        }
+    }
+    
+    /**
+     * Provides a node of the quadtree. A node of level 0 is a single cell, a node of level k has four children
+     * of level k-1 and covers 2^k x 2^k cells.
+     */
+    private static class Node {
+        private final int level, hash;
+        private final long population;
+        private Node nw, ne, sw, se, result, chain;
+        private int resultStep;
+        private boolean marked;
+        
+        /**
+         * Create a new node.
+         * @param level The level of the node.
+         * @param population The number of alive cells.
+         * @param hash The hash of the children.
+         */
+        public Node(final int level, final long population, final int hash) {
+            this.level = level;
+            this.population = population;
+            this.hash = hash;
+        }
+    }
+}
@@ -1,16 +1,20 @@
 package ch.windmill.gameOfLife;
 
-import java.util.ArrayList;
-
 /**
  * This class provides the engine to evolve cells. A life engine needs rules to decide which cells
  * will survive and which cells will be revived. All cells who doesnt pass the check will be dead in the
  * next generation.
+ * <br>
+ * The rules are compiled into a <code>gameOfLife.Rule</code> and precomputed into a lookup table, so the engine
+ * doesnt need to scan the rules for each cell. The engine doesnt allocate objects while evolving a generation.
  * @author Cyrill Jauner
  * @version 1.0.0
  */
 public class LifeEngine {
     private RuleSet rules;
+    private Rule rule;
+    private boolean[] table;
+    private boolean[][] genA, genB;
     
     /**
      * Creates a new life engine object. This constructor invokes the main construchtor with the default 
@@ -25,68 +29,83 @@ public class LifeEngine {
      * @param rules Set of rules to define the evolve process.
      */
     public LifeEngine(final RuleSet rules) {
-        this.rules = rules;
+        this(rules.getRule());
+    }
+    
+    /**
+     * Creates a new life engine object.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public LifeEngine(final Rule rule) {
+        setRule(rule);
     }
     
     /**
      * 
-     * @return Get the rules.
+     * @return Get the rules or null if the rule of the engine is not a ruleset.
      */
     public RuleSet getRules() {
         return rules;
     }
     
     /**
-     * Set a new ruleset.
+     * 
+     * @return Get the compiled rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
+    
+    /**
+     * Set a new ruleset. The lookup table of the engine will be rebuilt.
      * @param rules The reference to the ruleset.
      */
     public void setRules(RuleSet rules) {
-        this.rules = rules;
+        setRule(rules.getRule());
+    }
+    
+    /**
+     * Set a new compiled rule. The lookup table of the engine will be rebuilt. The index of the table is the
+     * number of living neighbours for a dead cell and the number of living neighbours plus 9 for a living cell.
+     * @param rule The compiled rule.
+     */
+    public void setRule(final Rule rule) {
+        this.rule = rule;
+        this.rules = rule.toRuleSet();
+        this.table = rule.toTable();
     }
     
     /**
      * Calculate a new generation of cells. Every cell in the current generation will be checked. This method
      * write the results into an boolean array. True means that the cell on this position is alive. Otherwise
      * the cell is dead.
+     * <br>
+     * The engine uses two arrays alternately for the results. The returned array will be overwritten by the
+     * next but one call of this method.
      * @param map The current generation.
      * @return The next generation.
      */
     public boolean[][] evolve(final Cell[][] map) {
-        boolean[][] newGen = new boolean[map.length][map[0].length];
+        final boolean[] table = this.table;
+        boolean[][] newGen;
         boolean right, left;
-        int countAlive, k;
+        int countAlive;
+        
+        if(genA == null || genA.length != map.length || genA[0].length != map[0].length) {
+            genA = new boolean[map.length][map[0].length];
+            genB = new boolean[map.length][map[0].length];
+        }
+        newGen = genA;                                                     // swap the result buffers
+        genA = genB;
+        genB = newGen;
         
         for(int i = 0; i < map.length; i++) {                              // check the current generation (X axis)
-            right = false;
-            left = false;
-            if(i > 0 && i < map.length-1) {
-                right = true;
-                left = true;
-            } else if(i == 0) {
-                right = true;
-            }  else if(i == map.length -1) {
-                left = true;
-            }
+            right = i < map.length-1;
+            left = i > 0;
             
             for(int j = 0; j < map[0].length; j++) {                       // check the current generation (Y axis)
-                newGen[i][j] = false;
                 countAlive = countAliveNeighbours(map, i, j, right, left); // get the number of alive neighbours
-                
-                if(map[i][j].isAlive()) {                                  // the current cell is alive
-                    for(k = 0; k < rules.getRemain().length; k++) {
-                        if(countAlive == rules.getRemain()[k]) {
-                            newGen[i][j] = true;
-                            break;
-                        }
-                    }
-                } else {                                                   // the current cell is dead
-                    for(k = 0; k < rules.getBirth().length; k++) {
-                        if(countAlive == rules.getBirth()[k]) {
-                            newGen[i][j] = true;
-                            break;
-                        }
-                    }
-                }
+                newGen[i][j] = table[(map[i][j].isAlive() ? 9 : 0) + countAlive];
             }
         }
         
@@ -94,59 +113,81 @@ public class LifeEngine {
     }
     
     /**
-     * Get the references of all neighbour cells.
-     * @param map The current generation.
-     * @param x The current x position.
-     * @param y The current y position.
-     * @return Arraylist with references of the neighbours.
+     * Calculate a new generation of cells in a grid. Every cell in the current generation will be checked. The
+     * border of the current grid is read as the neighbourhood of the outer cells, so no bounds checks are needed.
+     * This method writes the results into the next grid, its previous content will be overwritten.
+     * <br>
+     * The neighbours are counted with a sliding window. For each column the number of living cells in the row
+     * above, the current row and the row below is summed up, the count of a cell is the sum of three columns.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
      */
-    private ArrayList<Cell> getNeighbours(final Cell[][] map, final int x, final int y) {
-        ArrayList<Cell> n = new ArrayList<>();
-        boolean up = false;
-        boolean down = false;
-        
-        if(y > 0 && y < map[0].length-1) {
-            n.add(map[x][y+1]); // up
-            n.add(map[x][y-1]); // down
-            up = down = true;
-        } else if(y == 0) {
-            n.add(map[x][y+1]); // up
-            up = true;
-        } else if(y == map[0].length -1) {
-            n.add(map[x][y-1]); // down
-            down = true;
-        }
+    public void evolve(final BitGrid current, final BitGrid next) {
+        evolveRows(current, next, 0, current.getRows());
+    }
+    
+    /**
+     * Calculate the next generation of a band of rows. Only the rows from the index from to the index to
+     * (exclusive) are written into the next grid. The engine reads the current grid only, so bands can be
+     * calculated by several threads at the same time.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     */
+    public void evolveRows(final BitGrid current, final BitGrid next, final int from, final int to) {
+        evolveRegion(current, next, from, to, 0, current.getWordsPerRow());
+    }
+    
+    /**
+     * Calculate the next generation of a region. The region is a band of rows limited to the columns of the
+     * words from the index fromWord to the index toWord (exclusive). Cells outside of the region are not written
+     * into the next grid.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @param fromWord The index of the first word.
+     * @param toWord The index after the last word.
+     */
+    public void evolveRegion(final BitGrid current, final BitGrid next, final int from, final int to,
+            final int fromWord, final int toWord) {
+        final int firstColumn = Math.max(0, (fromWord << 6) - 1);
+        final int lastColumn = Math.min(current.getColumns(), (toWord << 6) - 1);
+        final boolean[] table = this.table;
+        int left, middle, right, p;
+        long alive;
+        long[] above, row, below;
         
-        if(x > 0 && x < map.length-1) {
-            n.add(map[x+1][y]); // right
-            n.add(map[x-1][y]); // left
-            if(up) {
-                n.add(map[x+1][y+1]); // up - right
-                n.add(map[x-1][y+1]); // up - left
-            }
-            if(down) {
-                n.add(map[x+1][y-1]); // down - right
-                n.add(map[x-1][y-1]); // down - left
-            }
-        } else if(x == 0) {
-            n.add(map[x+1][y]); // right
-            if(up) {
-                n.add(map[x+1][y+1]); // up - right
-            }
-            if(down) {
-                n.add(map[x+1][y-1]); // down - right
-            }
-        } else if(x == map.length -1) {
-            n.add(map[x-1][y]); // left
-            if(up) {
-                n.add(map[x-1][y+1]); // up - left
-            }
-            if(down) {
-                n.add(map[x-1][y-1]); // down - left
+        for(int i = from; i < to; i++) {                                  // check the current generation (X axis)
+            above = current.getRow(i-1);
+            row = current.getRow(i);
+            below = current.getRow(i+1);
+            left = columnSum(above, row, below, firstColumn);
+            middle = columnSum(above, row, below, firstColumn+1);
+            
+            for(int j = firstColumn; j < lastColumn; j++) {               // check the current generation (Y axis)
+                p = j+1;
+                right = columnSum(above, row, below, p+1);
+                alive = (row[p >>> 6] >>> p) & 1L;
+                next.set(i, j, table[(int) (alive * 9) + left + middle + right - (int) alive]);
+                left = middle;
+                middle = right;
             }
         }
-        
-        return n;
+    }
+    
+    /**
+     * Count the living cells of a column in three rows.
+     * @param above The row above.
+     * @param row The current row.
+     * @param below The row below.
+     * @param p The bit position of the column.
+     * @return The number of living cells from 0 to 3.
+     */
+    private static int columnSum(final long[] above, final long[] row, final long[] below, final int p) {
+        final int w = p >>> 6;
+        return (int) (((above[w] >>> p) & 1L) + ((row[w] >>> p) & 1L) + ((below[w] >>> p) & 1L));
     }
     
     /**
@@ -167,47 +208,17 @@ public class LifeEngine {
      */
     private int countAliveNeighbours(final Cell[][] map, final int x, final int y, final boolean right,
             final boolean left) {
+        final int from = left ? x-1 : x;
+        final int to = right ? x+1 : x;
+        final int down = y > 0 ? y-1 : y;
+        final int up = y < map[0].length-1 ? y+1 : y;
         int alive = 0;
-        ArrayList<Cell> n = new ArrayList<>();
         
-        if(y > 0 && y < map[0].length-1) {
-            n.add(map[x][y+1]);         // up
-            n.add(map[x][y-1]);         // down
-            if(right) {
-                n.add(map[x+1][y]);     // right
-                n.add(map[x+1][y+1]);   // up - right
-                n.add(map[x+1][y-1]);   // down - right
-            }
-            if(left) {
-                n.add(map[x-1][y]);     // left
-                n.add(map[x-1][y+1]);   // up - left
-                n.add(map[x-1][y-1]);   // down - left
-            }
-        } else if(y == 0) {
-            n.add(map[x][y+1]);         // up
-            if(right) {
-                n.add(map[x+1][y]);     // right
-                n.add(map[x+1][y+1]);   // up - right
-            }
-            if(left) {
-                n.add(map[x-1][y]);     // left
-                n.add(map[x-1][y+1]);   // up - left
-            }
-        } else if(y == map[0].length -1) {
-            n.add(map[x][y-1]);         // down
-            if(right) {
-                n.add(map[x+1][y]);     // right
-                n.add(map[x+1][y-1]);   // down - right
-            }
-            if(left) {
-                n.add(map[x-1][y]);     // left
-                n.add(map[x-1][y-1]);   // down - left
-            }
-        }
-        
-        for(Cell c : n) {               // check each cell if its alive
-            if(c.isAlive()) {
-                alive++;
+        for(int i = from; i <= to; i++) {
+            for(int j = down; j <= up; j++) {
+                if((i != x || j != y) && map[i][j].isAlive()) {
+                    alive++;
+                }
             }
         }
         
@@ -0,0 +1,198 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * This class provides a set of primitive long values. The values are stored in an open-addressing hash table with
+ * linear probing, so no value is boxed. The value 0 marks an empty slot of the table, the set stores it with a
+ * separate flag.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class LongHashSet {
+    private final int minLength;
+    private long[] keys;
+    private int size, mask;
+    private boolean containsZero;
+    
+    /**
+     * Creates a new empty set. This constructor invokes the main constructor with the default capacity 16.
+     */
+    public LongHashSet() {
+        this(16);
+    }
+    
+    /**
+     * Creates a new empty set.
+     * @param capacity The expected number of values.
+     */
+    public LongHashSet(final int capacity) {
+        minLength = tableLength(capacity);
+        keys = new long[minLength];
+        mask = minLength - 1;
+    }
+    
+    /**
+     * The number of values in the set.
+     * @return The number of values.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Check if the set contains a value.
+     * @param key The value.
+     * @return True if the value is in the set.
+     */
+    public boolean contains(final long key) {
+        if(key == 0) {
+            return containsZero;
+        }
+        for(int i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if(keys[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Add a value to the set.
+     * @param key The value.
+     * @return True if the value was not in the set.
+     */
+    public boolean add(final long key) {
+        int i;
+        
+        if(key == 0) {
+            if(containsZero) {
+                return false;
+            }
+            containsZero = true;
+            size++;
+            return true;
+        }
+        for(i = hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if(keys[i] == key) {
+                return false;
+            }
+        }
+        keys[i] = key;
+        if(++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+    
+    /**
+     * Remove a value from the set. The following values of the probe sequence are shifted back, so the table
+     * doesnt need deleted markers.
+     * @param key The value.
+     * @return True if the value was in the set.
+     */
+    public boolean remove(final long key) {
+        int i, j, home;
+        
+        if(key == 0) {
+            if(!containsZero) {
+                return false;
+            }
+            containsZero = false;
+            size--;
+            return true;
+        }
+        for(i = hash(key) & mask; keys[i] != key; i = (i + 1) & mask) {
+            if(keys[i] == 0) {
+                return false;
+            }
+        }
+        
+        keys[i] = 0;
+        size--;
+        for(j = (i + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            home = hash(keys[j]) & mask;
+            if(((j - home) & mask) >= ((j - i) & mask)) {   // the value can be moved into the free slot
+                keys[i] = keys[j];
+                keys[j] = 0;
+                i = j;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Remove every value. If less than an eighth of the table was used, the table shrinks to twice the capacity
+     * of the removed values, so a set that is refilled with fewer values doesnt scan the table of its peak.
+     */
+    public void clear() {
+        final int length = Math.max(minLength, tableLength(size * 2));
+        
+        if(length * 2 <= keys.length) {
+            keys = new long[length];
+            mask = length - 1;
+        } else {
+            Arrays.fill(keys, 0L);
+        }
+        containsZero = false;
+        size = 0;
+    }
+    
+    /**
+     * Pass every value of the set to an action.
+     * @param action The action.
+     */
+    public void forEach(final LongConsumer action) {
+        if(containsZero) {
+            action.accept(0L);
+        }
+        for(long k : keys) {
+            if(k != 0) {
+                action.accept(k);
+            }
+        }
+    }
+    
+    /**
+     * Create a new table and insert every value again.
+     * @param length The length of the new table.
+     */
+    private void rehash(final int length) {
+        final long[] old = keys;
+        int i;
+        
+        keys = new long[length];
+        mask = length - 1;
+        for(long k : old) {
+            if(k != 0) {
+                for(i = hash(k) & mask; keys[i] != 0; i = (i + 1) & mask) { }
+                keys[i] = k;
+            }
+        }
+    }
+    
+    /**
+     * Get the length of a table for a number of values. The table is a power of two and at most half full.
+     * @param capacity The number of values.
+     * @return The length of the table.
+     */
+    static int tableLength(final int capacity) {
+        int length = 8;
+        while(length < capacity * 2) {
+            length <<= 1;
+        }
+        return length;
+    }
+    
+    /**
+     * Mix the bits of a value.
+     * @param key The value.
+     * @return The hash of the value.
+     */
+    static int hash(final long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+}
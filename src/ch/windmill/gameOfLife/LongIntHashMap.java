@@ -0,0 +1,126 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+
+/**
+ * This class provides a map from primitive long keys to int values. The entries are stored in an open-addressing
+ * hash table with linear probing. The key 0 marks an empty slot of the table, the map stores its value in a
+ * separate field. The map is used to count the neighbours of cells, so it only supports adding to a value.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+class LongIntHashMap {
+    private final int minLength;
+    private long[] keys;
+    private int[] values;
+    private int size, mask, zeroValue;
+    private boolean containsZero;
+    
+    /**
+     * Creates a new empty map.
+     * @param capacity The expected number of entries.
+     */
+    LongIntHashMap(final int capacity) {
+        minLength = LongHashSet.tableLength(capacity);
+        keys = new long[minLength];
+        values = new int[minLength];
+        mask = minLength - 1;
+    }
+    
+    /**
+     * Add a value to the value of a key. A missing key is inserted with the value 0 before.
+     * @param key The key.
+     * @param value The value to add.
+     */
+    void add(final long key, final int value) {
+        int i;
+        
+        if(key == 0) {
+            if(!containsZero) {
+                containsZero = true;
+                size++;
+            }
+            zeroValue += value;
+            return;
+        }
+        for(i = LongHashSet.hash(key) & mask; keys[i] != 0; i = (i + 1) & mask) {
+            if(keys[i] == key) {
+                values[i] += value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        if(++size * 2 > keys.length) {
+            rehash(keys.length << 1);
+        }
+    }
+    
+    /**
+     * Remove every entry. If less than an eighth of the table was used, the table shrinks to twice the capacity
+     * of the removed entries, like the table of a <code>gameOfLife.LongHashSet</code>.
+     */
+    void clear() {
+        final int length = Math.max(minLength, LongHashSet.tableLength(size * 2));
+        
+        if(length * 2 <= keys.length) {
+            keys = new long[length];
+            values = new int[length];
+            mask = length - 1;
+        } else {
+            Arrays.fill(keys, 0L);
+        }
+        containsZero = false;
+        zeroValue = 0;
+        size = 0;
+    }
+    
+    /**
+     * Pass every entry of the map to an action.
+     * @param action The action.
+     */
+    void forEach(final EntryConsumer action) {
+        if(containsZero) {
+            action.accept(0L, zeroValue);
+        }
+        for(int i = 0; i < keys.length; i++) {
+            if(keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+    
+    /**
+     * Create a new table and insert every entry again.
+     * @param length The length of the new table.
+     */
+    private void rehash(final int length) {
+        final long[] oldKeys = keys;
+        final int[] oldValues = values;
+        int i;
+        
+        keys = new long[length];
+        values = new int[length];
+        mask = length - 1;
+        for(int k = 0; k < oldKeys.length; k++) {
+            if(oldKeys[k] != 0) {
+                for(i = LongHashSet.hash(oldKeys[k]) & mask; keys[i] != 0; i = (i + 1) & mask) { }
+                keys[i] = oldKeys[k];
+                values[i] = oldValues[k];
+            }
+        }
+    }
+    
+    /**
+     * Provides an action for the entries of the map.
+     */
+    interface EntryConsumer {
+        
+        /**
+         * Accept an entry.
+         * @param key The key.
+         * @param value The value.
+         */
+        void accept(long key, int value);
+    }
+}
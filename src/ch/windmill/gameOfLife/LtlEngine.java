@@ -0,0 +1,275 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+
+/**
+ * This class provides the engine to evolve cells of a <code>gameOfLife.LtlRule</code>. The cells are stored in a
+ * <code>gameOfLife.ByteGrid</code>, the border of the grid is not used. The cells outside of the world are read
+ * with the topology, a range can be larger than the world.
+ * <br>
+ * The neighbourhood is counted in a constant time per cell, independent of the range. The living cells of each
+ * row are copied into a ring of 2r+2 rows, which are padded with r cells on each side.
+ * <ul>
+ * <li>Moore: the ring keeps the sum of each column over the 2r+1 rows of the neighbourhood, it is updated with
+ * the row that enters and the row that leaves. The count of a cell is a sliding window of 2r+1 column sums.</li>
+ * <li>von Neumann: the ring keeps the prefix sums along both diagonals. The count of the first cell of a row is
+ * summed up, the next cell adds the cells of the right edge of the diamond and subtracts the cells of the left
+ * edge. Each edge consists of two diagonal segments, which are differences of two prefix sums.</li>
+ * </ul>
+ * The rings are allocated for each band of rows, so bands can be calculated by several threads at the same time.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class LtlEngine {
+    private LtlRule rule;
+    private byte[] table;
+    
+    /**
+     * Creates a new engine object. This constructor invokes the main constructor with the default parameter
+     * <code>LtlRule.BOSCO</code>.
+     */
+    public LtlEngine() {
+        this(LtlRule.BOSCO);
+    }
+    
+    /**
+     * Creates a new engine object.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public LtlEngine(final LtlRule rule) {
+        setRule(rule);
+    }
+    
+    /**
+     * 
+     * @return Get the compiled rule.
+     */
+    public LtlRule getRule() {
+        return rule;
+    }
+    
+    /**
+     * Set a new compiled rule. The lookup table of the engine will be rebuilt.
+     * @param rule The compiled rule.
+     */
+    public void setRule(final LtlRule rule) {
+        this.rule = rule;
+        this.table = rule.toTable();
+    }
+    
+    /**
+     * Calculate a new generation of cells in a grid. This method writes the results into the next grid.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param topology The topology of the world.
+     * @return The number of living cells in the next generation.
+     */
+    public int evolve(final ByteGrid current, final ByteGrid next, final Topology topology) {
+        return evolveRows(current, next, topology, 0, current.getRows());
+    }
+    
+    /**
+     * Calculate the next generation of a band of rows. Only the rows from the index from to the index to
+     * (exclusive) are written into the next grid.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param topology The topology of the world.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @return The number of living cells in the written rows of the next generation.
+     */
+    public int evolveRows(final ByteGrid current, final ByteGrid next, final Topology topology, final int from,
+            final int to) {
+        if(from >= to || current.getColumns() == 0) {
+            return 0;
+        }
+        return rule.isVonNeumann() ? evolveVonNeumann(current, next, topology, from, to)
+                : evolveMoore(current, next, topology, from, to);
+    }
+    
+    /**
+     * Calculate the next generation of a band of rows with the Moore neighbourhood.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into.
+     * @param topology The topology of the world.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @return The number of living cells in the written rows of the next generation.
+     */
+    private int evolveMoore(final ByteGrid current, final ByteGrid next, final Topology topology, final int from,
+            final int to) {
+        final int r = rule.getRange(), columns = current.getColumns(), ring = 2 * r + 2;
+        final int[][] rows = new int[ring][columns + 2 * r + 1];
+        final int[] sums = new int[columns + 2 * r + 1];
+        int population = 0;
+        
+        for(int x = from - r; x < from + r; x++) {
+            add(sums, extract(current, topology, x, r, rows[Math.floorMod(x, ring)]), 1);
+        }
+        for(int x = from; x < to; x++) {
+            final int[] alive = rows[Math.floorMod(x, ring)];
+            int count = 0;
+            
+            add(sums, extract(current, topology, x + r, r, rows[Math.floorMod(x + r, ring)]), 1);
+            for(int c = 0; c < 2 * r + 1; c++) {
+                count += sums[c];
+            }
+            for(int y = 0; y < columns; y++) {
+                population += apply(current, next, x, y, count, alive[y + r]);
+                if(y + 1 < columns) {
+                    count += sums[y + 2 * r + 1] - sums[y];
+                }
+            }
+            add(sums, rows[Math.floorMod(x - r, ring)], -1);
+        }
+        return population;
+    }
+    
+    /**
+     * Calculate the next generation of a band of rows with the von Neumann neighbourhood. The prefix sum of the
+     * diagonal down right is <code>p1[x][c] = alive[x][c] + p1[x-1][c-1]</code>, the prefix sum of the diagonal
+     * down left is <code>p2[x][c] = alive[x][c] + p2[x-1][c+1]</code>. The prefix sums start with the row r + 1
+     * above the band.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into.
+     * @param topology The topology of the world.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @return The number of living cells in the written rows of the next generation.
+     */
+    private int evolveVonNeumann(final ByteGrid current, final ByteGrid next, final Topology topology,
+            final int from, final int to) {
+        final int r = rule.getRange(), columns = current.getColumns(), ring = 2 * r + 2;
+        final int width = columns + 2 * r + 1;
+        final int[][] rows = new int[ring][width], p1 = new int[ring][width], p2 = new int[ring][width];
+        final int[] zero = new int[width];
+        int population = 0;
+        
+        for(int x = from - r - 1; x < from + r; x++) {
+            prefix(current, topology, x, x == from - r - 1, rows, p1, p2, zero);
+        }
+        for(int x = from; x < to; x++) {
+            final int[] alive = rows[Math.floorMod(x, ring)];
+            final int[] top1 = p1[Math.floorMod(x - r - 1, ring)], top2 = p2[Math.floorMod(x - r - 1, ring)];
+            final int[] mid1 = p1[Math.floorMod(x, ring)], mid2 = p2[Math.floorMod(x, ring)];
+            int count = 0;
+            
+            prefix(current, topology, x + r, false, rows, p1, p2, zero);
+            final int[] bottom1 = p1[Math.floorMod(x + r, ring)], bottom2 = p2[Math.floorMod(x + r, ring)];
+            for(int dx = -r; dx <= r; dx++) {                       // the diamond of the first cell
+                final int[] a = rows[Math.floorMod(x + dx, ring)];
+                for(int c = Math.abs(dx); c <= 2 * r - Math.abs(dx); c++) {
+                    count += a[c];
+                }
+            }
+            for(int y = 0; y < columns; y++) {
+                population += apply(current, next, x, y, count, alive[y + r]);
+                if(y + 1 < columns) {
+                    count += mid1[y + 2 * r + 1] - top1[y + r] + bottom2[y + r + 1] - mid2[y + 2 * r + 1]
+                            - (mid2[y] - top2[y + r + 1]) - (bottom1[y + r] - mid1[y]);
+                }
+            }
+        }
+        return population;
+    }
+    
+    /**
+     * Copy the living cells of a row into the ring and calculate the diagonal prefix sums of the row.
+     * @param current The current generation.
+     * @param topology The topology of the world.
+     * @param x The index of the row.
+     * @param first True if the prefix sums start with this row.
+     * @param rows The ring of the living cells.
+     * @param p1 The ring of the prefix sums down right.
+     * @param p2 The ring of the prefix sums down left.
+     * @param zero A row of zeros.
+     */
+    private void prefix(final ByteGrid current, final Topology topology, final int x, final boolean first,
+            final int[][] rows, final int[][] p1, final int[][] p2, final int[] zero) {
+        final int ring = rows.length, width = zero.length;
+        final int[] a = extract(current, topology, x, rule.getRange(), rows[Math.floorMod(x, ring)]);
+        final int[] s1 = p1[Math.floorMod(x, ring)], s2 = p2[Math.floorMod(x, ring)];
+        final int[] u1 = first ? zero : p1[Math.floorMod(x - 1, ring)];
+        final int[] u2 = first ? zero : p2[Math.floorMod(x - 1, ring)];
+        
+        s1[0] = a[0];
+        for(int c = 1; c < width; c++) {
+            s1[c] = a[c] + u1[c - 1];
+        }
+        for(int c = 0; c < width - 1; c++) {
+            s2[c] = a[c] + u2[c + 1];
+        }
+        s2[width - 1] = a[width - 1];
+    }
+    
+    /**
+     * Write the next state of a cell and check if it is alive.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param count The number of living cells in the neighbourhood, including the cell itself.
+     * @param alive 1 if the cell is alive, otherwise 0.
+     * @return 1 if the cell is alive in the next generation, otherwise 0.
+     */
+    private int apply(final ByteGrid current, final ByteGrid next, final int x, final int y, final int count,
+            final int alive) {
+        final int state = current.get(x, y);
+        final int n = rule.isMiddle() ? count : count - alive;
+        final int s;
+        
+        if(state < 2) {
+            s = table[state * (table.length >>> 1) + n];
+        } else {
+            s = state + 1 < rule.getStates() ? state + 1 : 0;
+        }
+        next.set(x, y, s);
+        return s == 1 ? 1 : 0;
+    }
+    
+    /**
+     * Add a row to the column sums.
+     * @param sums The column sums.
+     * @param row The row.
+     * @param sign 1 to add the row, -1 to subtract it.
+     */
+    private static void add(final int[] sums, final int[] row, final int sign) {
+        for(int c = 0; c < sums.length; c++) {
+            sums[c] += sign * row[c];
+        }
+    }
+    
+    /**
+     * Copy the living cells of a row into an array. The index c of the array is the column c - r, the columns
+     * and the rows outside of the world are read with the topology.
+     * @param grid The grid.
+     * @param topology The topology of the world.
+     * @param x The index of the row.
+     * @param r The range of the neighbourhood.
+     * @param row The array of the row.
+     * @return The array of the row.
+     */
+    private static int[] extract(final ByteGrid grid, final Topology topology, final int x, final int r,
+            final int[] row) {
+        final int rows = grid.getRows(), columns = grid.getColumns();
+        final int outside = topology == Topology.ALIVE_BORDER ? 1 : 0;
+        
+        if(!topology.isWrapping() && (x < 0 || x >= rows)) {
+            Arrays.fill(row, outside);
+            return row;
+        }
+        final int source = Math.floorMod(x, rows);
+        for(int c = 0; c < row.length; c++) {
+            final int y = c - r;
+            if(y >= 0 && y < columns) {
+                row[c] = grid.get(source, y) == 1 ? 1 : 0;
+            } else if(!topology.isWrapping()) {
+                row[c] = outside;
+            } else {
+                final boolean mirror = topology == Topology.KLEIN_BOTTLE && (Math.floorDiv(y, columns) & 1) != 0;
+                row[c] = grid.get(mirror ? rows - 1 - source : source, Math.floorMod(y, columns)) == 1 ? 1 : 0;
+            }
+        }
+        return row;
+    }
+}
@@ -0,0 +1,242 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a compiled Larger than Life rule. The neighbourhood of a cell is the square of the Moore
+ * neighbourhood or the diamond of the von Neumann neighbourhood with a range up to 100 cells. A dead cell is born
+ * if the number of living cells in its neighbourhood is in the birth interval, a living cell remains alive if the
+ * number is in the remain interval. The cell itself is counted if the middle flag is set.
+ * <br>
+ * Like a <code>gameOfLife.GenerationsRule</code>, a rule can have more than two states. A living cell that doesnt
+ * remain alive moves through the dying states, only the state 1 is counted as living.
+ * <br>
+ * A rule is parsed from a rule string in the notation "Rr,Cc,Mm,Smin..max,Bmin..max,Nn", e.g. Bosco's rule
+ * "R5,C0,M1,S34..58,B34..45,NM". The count of states c is 0 or 2 for two states, the neighbourhood n is M for
+ * Moore or N for von Neumann.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class LtlRule {
+    public final static int MAXRANGE = 100;
+    public final static LtlRule BOSCO = new LtlRule(5, 2, true, 34, 58, 34, 45, false);
+    public final static LtlRule MAJORITY = new LtlRule(4, 2, true, 41, 81, 41, 81, false);
+    
+    private final int range, states, remainMin, remainMax, birthMin, birthMax;
+    private final boolean middle, vonNeumann;
+    
+    /**
+     * Creates a new rule object.
+     * @param range The range of the neighbourhood.
+     * @param states The number of states, including the dead and the living state.
+     * @param middle True if the cell itself is counted.
+     * @param remainMin The lowest count to remain alive.
+     * @param remainMax The highest count to remain alive.
+     * @param birthMin The lowest count to birth a cell.
+     * @param birthMax The highest count to birth a cell.
+     * @param vonNeumann True for the von Neumann neighbourhood, false for the Moore neighbourhood.
+     * @throws IllegalArgumentException The range is not between 1 and 100 or the number of states is not between
+     * 2 and 256.
+     */
+    public LtlRule(final int range, final int states, final boolean middle, final int remainMin,
+            final int remainMax, final int birthMin, final int birthMax, final boolean vonNeumann)
+            throws IllegalArgumentException {
+        if(range < 1 || range > MAXRANGE) {
+            throw new IllegalArgumentException("The range must be between 1 and "+MAXRANGE);
+        }
+        if(states < 2 || states > GenerationsRule.MAXSTATES) {
+            throw new IllegalArgumentException("The number of states must be between 2 and "
+                    +GenerationsRule.MAXSTATES);
+        }
+        this.range = range;
+        this.states = states;
+        this.middle = middle;
+        this.remainMin = remainMin;
+        this.remainMax = remainMax;
+        this.birthMin = birthMin;
+        this.birthMax = birthMax;
+        this.vonNeumann = vonNeumann;
+    }
+    
+    /**
+     * Parse a rule string in the notation "Rr,Cc,Mm,Smin..max,Bmin..max,Nn". Letters can be upper or lower case,
+     * the parts C, M and N can be omitted, the defaults are 2 states, the middle is counted and the Moore
+     * neighbourhood.
+     * @param s The rule string.
+     * @return The compiled rule.
+     * @throws IllegalArgumentException The rule string is not valid.
+     */
+    public static LtlRule parse(final String s) throws IllegalArgumentException {
+        final String r = s.trim().toUpperCase();
+        int range = -1, states = 2;
+        int[] remain = null, birth = null;
+        boolean middle = true, vonNeumann = false;
+        
+        for(String part : r.split(",")) {
+            final String p = part.trim();
+            if(p.length() < 2) {
+                throw new IllegalArgumentException("Invalid rule string: "+s);
+            }
+            final String v = p.substring(1);
+            switch(p.charAt(0)) {
+                case 'R':
+                    range = number(v, s);
+                    break;
+                case 'C':
+                    states = Math.max(2, number(v, s));
+                    break;
+                case 'M':
+                    middle = number(v, s) != 0;
+                    break;
+                case 'S':
+                    remain = interval(v, s);
+                    break;
+                case 'B':
+                    birth = interval(v, s);
+                    break;
+                case 'N':
+                    if(!v.equals("M") && !v.equals("N")) {
+                        throw new IllegalArgumentException("Invalid rule string: "+s);
+                    }
+                    vonNeumann = v.equals("N");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Invalid rule string: "+s);
+            }
+        }
+        if(range < 0 || remain == null || birth == null) {
+            throw new IllegalArgumentException("Invalid rule string: "+s);
+        }
+        
+        return new LtlRule(range, states, middle, remain[0], remain[1], birth[0], birth[1], vonNeumann);
+    }
+    
+    /**
+     * Convert a string into a number.
+     * @param d The number.
+     * @param s The whole rule string for the error message.
+     * @return The number.
+     * @throws IllegalArgumentException The string is not a number.
+     */
+    private static int number(final String d, final String s) throws IllegalArgumentException {
+        try {
+            return Integer.parseInt(d);
+        } catch(NumberFormatException ex) {
+            throw new IllegalArgumentException("Invalid rule string: "+s);
+        }
+    }
+    
+    /**
+     * Convert a string "min..max" or a single number into an interval.
+     * @param d The interval.
+     * @param s The whole rule string for the error message.
+     * @return The lowest and the highest number.
+     * @throws IllegalArgumentException The string is not an interval.
+     */
+    private static int[] interval(final String d, final String s) throws IllegalArgumentException {
+        final int dots = d.indexOf("..");
+        
+        if(dots < 0) {
+            final int n = number(d, s);
+            return new int[]{n, n};
+        }
+        return new int[]{number(d.substring(0, dots), s), number(d.substring(dots + 2), s)};
+    }
+    
+    /**
+     * 
+     * @return The range of the neighbourhood.
+     */
+    public int getRange() {
+        return range;
+    }
+    
+    /**
+     * 
+     * @return The number of states, including the dead and the living state.
+     */
+    public int getStates() {
+        return states;
+    }
+    
+    /**
+     * 
+     * @return True if the cell itself is counted.
+     */
+    public boolean isMiddle() {
+        return middle;
+    }
+    
+    /**
+     * 
+     * @return True for the von Neumann neighbourhood, false for the Moore neighbourhood.
+     */
+    public boolean isVonNeumann() {
+        return vonNeumann;
+    }
+    
+    /**
+     * The number of cells in the neighbourhood, including the cell itself.
+     * @return The size of the neighbourhood.
+     */
+    public int getNeighbourhoodSize() {
+        return vonNeumann ? 2 * range * (range + 1) + 1 : (2 * range + 1) * (2 * range + 1);
+    }
+    
+    /**
+     * Calculate the next state of a cell.
+     * @param state The state of the cell.
+     * @param n The number of living cells in the neighbourhood, including the cell itself if the middle is
+     * counted.
+     * @return The state in the next generation.
+     */
+    public int next(final int state, final int n) {
+        if(state == 0) {
+            return n >= birthMin && n <= birthMax ? 1 : 0;
+        }
+        if(state == 1 && n >= remainMin && n <= remainMax) {
+            return 1;
+        }
+        return state + 1 < states ? state + 1 : 0;
+    }
+    
+    /**
+     * Create a lookup table of the dead and the living state. The index of the table is the number of living
+     * cells for a dead cell and the number of living cells plus the size of the neighbourhood plus 1 for a living
+     * cell.
+     * @return The lookup table.
+     */
+    public byte[] toTable() {
+        final int size = getNeighbourhoodSize() + 1;
+        final byte[] table = new byte[2 * size];
+        for(int n = 0; n < size; n++) {
+            table[n] = (byte) next(0, n);
+            table[size + n] = (byte) next(1, n);
+        }
+        return table;
+    }
+    
+    @Override
+    public boolean equals(final Object o) {
+        if(!(o instanceof LtlRule)) {
+            return false;
+        }
+        final LtlRule l = (LtlRule) o;
+        return l.range == range && l.states == states && l.middle == middle && l.remainMin == remainMin
+                && l.remainMax == remainMax && l.birthMin == birthMin && l.birthMax == birthMax
+                && l.vonNeumann == vonNeumann;
+    }
+    
+    @Override
+    public int hashCode() {
+        return toString().hashCode();
+    }
+    
+    /**
+     * Create the rule string.
+     * @return The rule string, e.g. "R5,C0,M1,S34..58,B34..45,NM".
+     */
+    @Override
+    public String toString() {
+        return "R"+range+",C"+(states == 2 ? 0 : states)+",M"+(middle ? 1 : 0)+",S"+remainMin+".."+remainMax
+                +",B"+birthMin+".."+birthMax+",N"+(vonNeumann ? "N" : "M");
+    }
+}
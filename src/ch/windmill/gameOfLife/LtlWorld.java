@@ -0,0 +1,60 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a world of cells with a large neighbourhood, which are evolved by a
+ * <code>gameOfLife.LtlEngine</code>. The cells and the generations are managed by the
+ * <code>gameOfLife.ByteGridWorld</code>, the engine reads the cells outside of the world with the topology.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class LtlWorld extends ByteGridWorld {
+    private final LtlEngine engine;
+    
+    /**
+     * Creates a new world object. This constructor invokes the main constructor with the default parameter
+     * <code>LtlRule.BOSCO</code>.
+     * @param xAxis The number of cells in the x axis.
+     * @param yAxis The number of cells in the y axis.
+     */
+    public LtlWorld(final int xAxis, final int yAxis) {
+        this(xAxis, yAxis, LtlRule.BOSCO);
+    }
+    
+    /**
+     * Creates a new world object. All cells are dead.
+     * @param xAxis The number of cells in the x axis.
+     * @param yAxis The number of cells in the y axis.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public LtlWorld(final int xAxis, final int yAxis, final LtlRule rule) {
+        super(xAxis, yAxis);
+        engine = new LtlEngine(rule);
+    }
+    
+    /**
+     * 
+     * @return Get the compiled rule.
+     */
+    public LtlRule getRule() {
+        return engine.getRule();
+    }
+    
+    /**
+     * Set a new compiled rule. The cells with a state that the new rule doesnt have are killed.
+     * @param rule The compiled rule.
+     */
+    public void setRule(final LtlRule rule) {
+        engine.setRule(rule);
+        removeStates(rule.getStates());
+    }
+    
+    @Override
+    protected int getStates() {
+        return engine.getRule().getStates();
+    }
+    
+    @Override
+    protected int evolveRows(final ByteGrid current, final ByteGrid next, final int from, final int to) {
+        return engine.evolveRows(current, next, getTopology(), from, to);
+    }
+}
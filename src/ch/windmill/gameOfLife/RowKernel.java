@@ -0,0 +1,27 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This interface provides the calculation of a row of words for the <code>gameOfLife.VectorLifeEngine</code>. The
+ * implementation is compiled from a separate source directory with a newer Java version and is loaded by its
+ * name, so the engine doesnt depend on it.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+interface RowKernel {
+    
+    /**
+     * Calculate the next generation of the words of a row from the index fromWord to the index toWord
+     * (exclusive).
+     * @param above The row above.
+     * @param row The current row.
+     * @param below The row below.
+     * @param out The row of the next generation.
+     * @param mask The mask of the cells inside of the world.
+     * @param fromWord The index of the first word.
+     * @param toWord The index after the last word.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     */
+    void evolveRow(long[] above, long[] row, long[] below, long[] out, long[] mask, int fromWord, int toWord,
+            int birth, int remain);
+}
@@ -0,0 +1,199 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a compiled outer-totalistic rule. The birth and remain rules are stored as bit masks of
+ * 9 bits, the bit n is set if a cell with n living neighbours is born or remains. Every engine uses these masks
+ * in its hot loop, so it doesnt need to scan lists of neighbour counts.
+ * <br>
+ * A rule can be parsed from a rule string in the B/S notation, e.g. "B3/S23", or in the S/B notation, e.g.
+ * "23/3". All 2^18 outer-totalistic rules can be described.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class Rule {
+    private final int birth, remain;
+    
+    /**
+     * Creates a new rule object.
+     * @param birth The bit mask of the birth rules.
+     * @param remain The bit mask of the remain rules.
+     * @throws IllegalArgumentException A mask has more than 9 bits.
+     */
+    public Rule(final int birth, final int remain) throws IllegalArgumentException {
+        if((birth & ~0x1ff) != 0 || (remain & ~0x1ff) != 0) {
+            throw new IllegalArgumentException("A rule mask must have 9 bits");
+        }
+        this.birth = birth;
+        this.remain = remain;
+    }
+    
+    /**
+     * Creates a new rule object from lists of neighbour counts.
+     * @param birth Number of living cells to birth a cell.
+     * @param remain Number of living cells to remain a cell.
+     * @throws IllegalArgumentException A count is not between 0 and 8.
+     */
+    public Rule(final int[] birth, final int[] remain) throws IllegalArgumentException {
+        this(toMask(birth), toMask(remain));
+    }
+    
+    /**
+     * Parse a rule string. The B/S notation "B3/S23" and the S/B notation "23/3" are supported. Letters can be
+     * upper or lower case, the slash can be omitted in the B/S notation.
+     * @param s The rule string.
+     * @return The compiled rule.
+     * @throws IllegalArgumentException The rule string is not valid.
+     */
+    public static Rule parse(final String s) throws IllegalArgumentException {
+        final String r = s.trim().toUpperCase();
+        int b = 0, sv = 0, slash;
+        
+        if(r.indexOf('B') >= 0 || r.indexOf('S') >= 0) {           // B/S notation
+            boolean birthPart = true;
+            boolean part = false;
+            for(char c : r.toCharArray()) {
+                if(c == 'B') {
+                    birthPart = true;
+                    part = true;
+                } else if(c == 'S') {
+                    birthPart = false;
+                    part = true;
+                } else if(c >= '0' && c <= '8' && part) {
+                    if(birthPart) {
+                        b |= 1 << (c - '0');
+                    } else {
+                        sv |= 1 << (c - '0');
+                    }
+                } else if(c != '/') {
+                    throw new IllegalArgumentException("Invalid rule string: "+s);
+                }
+            }
+        } else if((slash = r.indexOf('/')) >= 0) {                  // S/B notation
+            sv = digits(r.substring(0, slash), s);
+            b = digits(r.substring(slash + 1), s);
+        } else {
+            throw new IllegalArgumentException("Invalid rule string: "+s);
+        }
+        
+        return new Rule(b, sv);
+    }
+    
+    /**
+     * Convert a string of neighbour counts into a bit mask.
+     * @param d The digits.
+     * @param s The whole rule string for the error message.
+     * @return The bit mask.
+     * @throws IllegalArgumentException A character is not a digit between 0 and 8.
+     */
+    private static int digits(final String d, final String s) throws IllegalArgumentException {
+        int mask = 0;
+        for(char c : d.toCharArray()) {
+            if(c < '0' || c > '8') {
+                throw new IllegalArgumentException("Invalid rule string: "+s);
+            }
+            mask |= 1 << (c - '0');
+        }
+        return mask;
+    }
+    
+    /**
+     * Convert a list of neighbour counts into a bit mask. The bit n is set if the count n is in the list.
+     * @param counts The list of neighbour counts.
+     * @return The bit mask.
+     * @throws IllegalArgumentException A count is not between 0 and 8.
+     */
+    public static int toMask(final int[] counts) throws IllegalArgumentException {
+        int mask = 0;
+        for(int n : counts) {
+            if(n < 0 || n > 8) {
+                throw new IllegalArgumentException("A neighbour count must be between 0 and 8");
+            }
+            mask |= 1 << n;
+        }
+        return mask;
+    }
+    
+    /**
+     * 
+     * @return The bit mask of the birth rules.
+     */
+    public int getBirthMask() {
+        return birth;
+    }
+    
+    /**
+     * 
+     * @return The bit mask of the remain rules.
+     */
+    public int getRemainMask() {
+        return remain;
+    }
+    
+    /**
+     * Calculate the next state of a cell.
+     * @param isAlive The living state of the cell.
+     * @param n The number of living neighbours.
+     * @return True if the cell is alive in the next generation.
+     */
+    public boolean next(final boolean isAlive, final int n) {
+        return (((isAlive ? remain : birth) >>> n) & 1) != 0;
+    }
+    
+    /**
+     * Create a lookup table with 18 entries. The index of the table is the number of living neighbours for a dead
+     * cell and the number of living neighbours plus 9 for a living cell.
+     * @return The lookup table.
+     */
+    public boolean[] toTable() {
+        final boolean[] table = new boolean[18];
+        for(int n = 0; n < 9; n++) {
+            table[n] = next(false, n);
+            table[9 + n] = next(true, n);
+        }
+        return table;
+    }
+    
+    /**
+     * Get the ruleset with the same rules.
+     * @return The ruleset or null if there is no ruleset with these rules.
+     */
+    public RuleSet toRuleSet() {
+        for(RuleSet r : RuleSet.values()) {
+            if(r.getRule().equals(this)) {
+                return r;
+            }
+        }
+        return null;
+    }
+    
+    @Override
+    public boolean equals(final Object o) {
+        return o instanceof Rule && ((Rule) o).birth == birth && ((Rule) o).remain == remain;
+    }
+    
+    @Override
+    public int hashCode() {
+        return birth << 9 | remain;
+    }
+    
+    /**
+     * Create the rule string in the B/S notation.
+     * @return The rule string, e.g. "B3/S23".
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("B");
+        for(int n = 0; n < 9; n++) {
+            if((birth & (1 << n)) != 0) {
+                sb.append(n);
+            }
+        }
+        sb.append("/S");
+        for(int n = 0; n < 9; n++) {
+            if((remain & (1 << n)) != 0) {
+                sb.append(n);
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -3,7 +3,7 @@ package ch.windmill.gameOfLife;
 /**
  * This enum provides sets of rules for a <code>gameOfLife.LifeEngine</code>. Every ruleset define rules 
  * for the birth and remain of cell objects. A rule is a list with possible integer values of living neighbour
- * cells.
+ * cells. Each ruleset is compiled into a <code>gameOfLife.Rule</code>, which is used by the engines.
  * @author Cyrill Jauner
  * @version 1.0.0
  */
@@ -19,6 +19,7 @@ public enum RuleSet {
     
     private final int[] birth;
     private final int[] remain;
+    private final Rule rule;
     
     /**
      * Creates a new ruleset enum. It is defined by birth and remain rules.
@@ -28,6 +29,7 @@ public enum RuleSet {
     RuleSet(final int[] birth, final int[] remain) {
         this.birth = birth;
         this.remain = remain;
+        this.rule = new Rule(birth, remain);
     }
     
     /**
@@ -45,4 +47,12 @@ public enum RuleSet {
     public int[] getRemain() {
         return remain;
     }
+    
+    /**
+     * 
+     * @return The compiled rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
 }
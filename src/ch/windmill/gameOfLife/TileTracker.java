@@ -0,0 +1,186 @@
+package ch.windmill.gameOfLife;
+
+import java.util.Arrays;
+
+/**
+ * This class provides the tracking of active tiles. The grid is split into tiles of 64 rows and one word. A tile is
+ * active if the tile itself or one of its eight neighbour tiles was changed in the last generation. Only active
+ * tiles are evolved, the other tiles can not change because their whole neighbourhood is the same as in the
+ * generation before.
+ * <br>
+ * An inactive tile is not written into the next grid. The next grid still contains the generation before the
+ * current one, which is equal to the current generation in every unchanged tile.
+ * <br>
+ * If the topology of the world wraps around, the tiles at one edge are neighbours of the tiles at another edge.
+ * In this case every edge tile is active if one of the edge tiles was changed.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+class TileTracker {
+    public final static int TILEROWS = 64;
+    
+    private final int tileRows, tileWords, lastColumnWord;
+    private final boolean wrapping;
+    private boolean[] changed, nextChanged;
+    private final int[] activeInRow;
+    private int activeTiles;
+    private boolean edgeChanged;
+    
+    /**
+     * Creates a new tile tracker. Every tile is marked as changed.
+     * @param grid The grid to track.
+     * @param wrapping True if the topology of the world wraps around.
+     */
+    TileTracker(final BitGrid grid, final boolean wrapping) {
+        tileRows = (grid.getRows() + TILEROWS - 1) / TILEROWS;
+        tileWords = grid.getWordsPerRow();
+        lastColumnWord = grid.getColumns() >>> 6;
+        this.wrapping = wrapping;
+        changed = new boolean[tileRows * tileWords];
+        nextChanged = new boolean[tileRows * tileWords];
+        activeInRow = new int[tileRows];
+        markAll();
+    }
+    
+    /**
+     * The number of tile rows.
+     * @return The number of tile rows.
+     */
+    int getTileRows() {
+        return tileRows;
+    }
+    
+    /**
+     * The number of tiles.
+     * @return The number of tiles.
+     */
+    int getNumberOfTiles() {
+        return changed.length;
+    }
+    
+    /**
+     * The number of tiles that were evolved in the last generation.
+     * @return The number of active tiles.
+     */
+    int getActiveTiles() {
+        return activeTiles;
+    }
+    
+    /**
+     * Check if a tile was changed in the last generation.
+     * @param tileRow The row of the tile.
+     * @param tileWord The word of the tile.
+     * @return True if the tile was changed.
+     */
+    boolean isChanged(final int tileRow, final int tileWord) {
+        return changed[tileRow * tileWords + tileWord];
+    }
+    
+    /**
+     * Mark every tile as changed.
+     */
+    void markAll() {
+        Arrays.fill(changed, true);
+        edgeChanged = true;
+    }
+    
+    /**
+     * Mark the tile of a cell as changed.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     */
+    void mark(final int x, final int y) {
+        changed[(x / TILEROWS) * tileWords + ((y + 1) >>> 6)] = true;
+        edgeChanged |= isEdge(x / TILEROWS, (y + 1) >>> 6);
+    }
+    
+    /**
+     * Evolve the active tiles of a band of tile rows. The changed flags of the next generation are written for
+     * each tile of the band.
+     * @param engine The engine to evolve the tiles.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into.
+     * @param from The index of the first tile row.
+     * @param to The index after the last tile row.
+     */
+    void evolve(final LifeEngine engine, final BitGrid current, final BitGrid next, final int from, final int to) {
+        final long[] mask = current.getInnerMask();
+        
+        for(int tr = from; tr < to; tr++) {
+            final int firstRow = tr * TILEROWS;
+            final int lastRow = Math.min(firstRow + TILEROWS, current.getRows());
+            int active = 0;
+            
+            for(int tw = 0; tw < tileWords; tw++) {
+                final int t = tr * tileWords + tw;
+                nextChanged[t] = false;
+                if(isActive(tr, tw)) {
+                    active++;
+                    engine.evolveRegion(current, next, firstRow, lastRow, tw, tw+1);
+                    for(int i = firstRow; i < lastRow; i++) {
+                        if(((current.getRow(i)[tw] ^ next.getRow(i)[tw]) & mask[tw]) != 0) {
+                            nextChanged[t] = true;
+                            break;
+                        }
+                    }
+                }
+            }
+            activeInRow[tr] = active;
+        }
+    }
+    
+    /**
+     * Finish a generation. The changed flags of the next generation become the current flags.
+     */
+    void swap() {
+        final boolean[] tmp = changed;
+        
+        changed = nextChanged;
+        nextChanged = tmp;
+        activeTiles = 0;
+        for(int a : activeInRow) {
+            activeTiles += a;
+        }
+        
+        edgeChanged = false;
+        if(wrapping) {
+            for(int tr = 0; tr < tileRows; tr++) {
+                for(int tw = 0; tw < tileWords; tw++) {
+                    if(changed[tr * tileWords + tw] && isEdge(tr, tw)) {
+                        edgeChanged = true;
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * Check if a tile contains cells at the edge of the world.
+     * @param tr The row of the tile.
+     * @param tw The word of the tile.
+     * @return True if the tile is at the edge.
+     */
+    private boolean isEdge(final int tr, final int tw) {
+        return tr == 0 || tr == tileRows-1 || tw == 0 || tw >= lastColumnWord;
+    }
+    
+    /**
+     * Check if a tile or one of its neighbour tiles was changed in the last generation.
+     * @param tr The row of the tile.
+     * @param tw The word of the tile.
+     * @return True if the tile has to be evolved.
+     */
+    private boolean isActive(final int tr, final int tw) {
+        if(wrapping && edgeChanged && isEdge(tr, tw)) {
+            return true;
+        }
+        for(int r = Math.max(0, tr-1); r <= Math.min(tileRows-1, tr+1); r++) {
+            for(int w = Math.max(0, tw-1); w <= Math.min(tileWords-1, tw+1); w++) {
+                if(changed[r * tileWords + w]) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
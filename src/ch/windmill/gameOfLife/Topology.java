@@ -0,0 +1,36 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This enum provides the topologies of a <code>gameOfLife.World</code>. The topology defines the cells outside
+ * of the world. These cells are stored in the border of a <code>gameOfLife.BitGrid</code>, so an engine reads them
+ * like every other neighbour.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public enum Topology {
+    /**
+     * Every cell outside of the world is dead.
+     */
+    DEAD,
+    /**
+     * The rows and the columns wrap around.
+     */
+    TORUS,
+    /**
+     * The rows wrap around. The columns wrap around with a reflection, the column after the last column is the
+     * first column of the mirrored row.
+     */
+    KLEIN_BOTTLE,
+    /**
+     * Every cell outside of the world is alive.
+     */
+    ALIVE_BORDER;
+    
+    /**
+     * Check if the cells at one edge of the world are the neighbours of the cells at another edge.
+     * @return True if the topology wraps around.
+     */
+    public boolean isWrapping() {
+        return this == TORUS || this == KLEIN_BOTTLE;
+    }
+}
@@ -0,0 +1,237 @@
+package ch.windmill.gameOfLife;
+
+import java.util.function.LongConsumer;
+
+/**
+ * This class provides a world without a border. Only the living cells are stored, their coordinates are packed
+ * into long values of a <code>gameOfLife.LongHashSet</code>. A new generation is calculated by counting the
+ * neighbours around the living cells, so the cost of a generation depends on the population and not on the area
+ * of the world.
+ * <br>
+ * The coordinates are int values, a pattern that moves beyond the range of int wraps around. The rules of a
+ * <code>gameOfLife.Rule</code> are supported if they don't birth cells with 0 living neighbours, because these
+ * rules would fill the infinite empty space.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class UnboundedWorld {
+    private Rule rule;
+    private int birth, remain;
+    private LongHashSet cells, nextCells;
+    private final LongIntHashMap counts;
+    private final LongConsumer countAction;
+    private final LongIntHashMap.EntryConsumer ruleAction;
+    private long generation;
+    
+    /**
+     * Creates a new unbounded world object. This constructor invokes the main constructor with the default
+     * parameter <code>RuleSet.CONWAY</code>.
+     */
+    public UnboundedWorld() {
+        this(RuleSet.CONWAY);
+    }
+    
+    /**
+     * Creates a new unbounded world object without living cells.
+     * @param rules Set of rules to define the evolve process.
+     * @throws IllegalArgumentException The rules are not supported.
+     */
+    public UnboundedWorld(final RuleSet rules) throws IllegalArgumentException {
+        this(rules.getRule());
+    }
+    
+    /**
+     * Creates a new unbounded world object without living cells.
+     * @param rule The compiled rule to define the evolve process.
+     * @throws IllegalArgumentException The rule is not supported.
+     */
+    public UnboundedWorld(final Rule rule) throws IllegalArgumentException {
+        cells = new LongHashSet();
+        nextCells = new LongHashSet();
+        counts = new LongIntHashMap(16);
+        countAction = this::countNeighbours;
+        ruleAction = this::applyRules;
+        setRule(rule);
+    }
+    
+    /**
+     * 
+     * @return Get the rules or null if the rule of the world is not a ruleset.
+     */
+    public RuleSet getRules() {
+        return rule.toRuleSet();
+    }
+    
+    /**
+     * 
+     * @return Get the compiled rule.
+     */
+    public Rule getRule() {
+        return rule;
+    }
+    
+    /**
+     * Set a new ruleset. This method invokes the method <code>setRule</code>.
+     * @param rules The reference to the ruleset.
+     * @throws IllegalArgumentException The rules birth cells with 0 living neighbours.
+     */
+    public void setRules(final RuleSet rules) throws IllegalArgumentException {
+        setRule(rules.getRule());
+    }
+    
+    /**
+     * Set a new compiled rule.
+     * @param rule The compiled rule.
+     * @throws IllegalArgumentException The rule births cells with 0 living neighbours.
+     */
+    public void setRule(final Rule rule) throws IllegalArgumentException {
+        if((rule.getBirthMask() & 1) != 0) {
+            throw new IllegalArgumentException("An unbounded world doesnt support rules with birth on 0 neighbours: "
+                    +rule);
+        }
+        this.rule = rule;
+        birth = rule.getBirthMask();
+        remain = rule.getRemainMask();
+    }
+    
+    /**
+     * The number of generations since the world was created or cleared.
+     * @return The generation counter.
+     */
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * The number of alive cells.
+     * @return The number of alive cells.
+     */
+    public int getPopulation() {
+        return cells.size();
+    }
+    
+    /**
+     * Check if the cell with the coordinates x and y is alive.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return True if the cell is alive, otherwise false.
+     */
+    public boolean isAlive(final int x, final int y) {
+        return cells.contains(key(x, y));
+    }
+    
+    /**
+     * Change the living state of the cell with the coordinates x and y.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param isAlive True to set the cell alive, false to set it dead.
+     */
+    public void setAlive(final int x, final int y, final boolean isAlive) {
+        if(isAlive) {
+            cells.add(key(x, y));
+        } else {
+            cells.remove(key(x, y));
+        }
+    }
+    
+    /**
+     * Kill every cell and reset the generation counter.
+     */
+    public void killGeneration() {
+        cells.clear();
+        generation = 0;
+    }
+    
+    /**
+     * Evolve the current generation of cells. Every living cell adds one to the count of its eight neighbours.
+     * Only the cells with a count or a living state can be alive in the next generation.
+     */
+    public void startEngine() {
+        final LongHashSet tmp = cells;
+        
+        counts.clear();
+        cells.forEach(countAction);
+        nextCells.clear();
+        counts.forEach(ruleAction);
+        cells = nextCells;
+        nextCells = tmp;
+        generation++;
+    }
+    
+    /**
+     * Copy the living cells of a world into this world. The cell (0, 0) of the world is placed at the given
+     * position.
+     * @param world The world to copy from.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     */
+    public void load(final World world, final int x, final int y) {
+        for(int i = 0; i < world.getXAxis(); i++) {
+            for(int j = 0; j < world.getYAxis(); j++) {
+                if(world.isAlive(i, j)) {
+                    cells.add(key(x + i, y + j));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Copy a window of this world into a world. The window starts at the given position and has the size of
+     * the world. The world is killed before.
+     * @param world The world to copy into.
+     * @param x The position of the window in the x axis.
+     * @param y The position of the window in the y axis.
+     */
+    public void store(final World world, final int x, final int y) {
+        world.killGeneration();
+        cells.forEach((long k) -> {
+            final int i = (int) (k >> 32) - x;
+            final int j = (int) k - y;
+            if(i >= 0 && i < world.getXAxis() && j >= 0 && j < world.getYAxis()) {
+                world.setAlive(i, j, true);
+            }
+        });
+    }
+    
+    /**
+     * Add one to the count of each neighbour of a living cell. The cell itself is added with 0, so it is checked
+     * even if it has no neighbours.
+     * @param k The key of the living cell.
+     */
+    private void countNeighbours(final long k) {
+        final int x = (int) (k >> 32);
+        final int y = (int) k;
+        
+        counts.add(k, 0);
+        counts.add(key(x-1, y-1), 1);
+        counts.add(key(x-1, y), 1);
+        counts.add(key(x-1, y+1), 1);
+        counts.add(key(x, y-1), 1);
+        counts.add(key(x, y+1), 1);
+        counts.add(key(x+1, y-1), 1);
+        counts.add(key(x+1, y), 1);
+        counts.add(key(x+1, y+1), 1);
+    }
+    
+    /**
+     * Apply the rules to a cell and add it to the next generation if it passes.
+     * @param k The key of the cell.
+     * @param n The number of living neighbours.
+     */
+    private void applyRules(final long k, final int n) {
+        final int rule = cells.contains(k) ? remain : birth;
+        if(((rule >>> n) & 1) != 0) {
+            nextCells.add(k);
+        }
+    }
+    
+    /**
+     * Pack the coordinates of a cell into a key.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return The key.
+     */
+    private static long key(final int x, final int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+}
@@ -0,0 +1,90 @@
+package ch.windmill.gameOfLife;
+
+/**
+ * This class provides a life engine that evolves several words of 64 cells with one instruction. The neighbours
+ * are added with the bitwise full adders of the <code>gameOfLife.BitwiseLifeEngine</code>, but each adder works
+ * on the lanes of a <code>jdk.incubator.vector.LongVector</code>. The birth and remain masks of the rule are
+ * applied to the lanes in the same way.
+ * <br>
+ * The kernel is compiled from the directory src-vector and needs Java 17 with the option
+ * <code>--add-modules jdk.incubator.vector</code>. If the kernel or the module is missing, the engine evolves
+ * the words one by one like the bitwise engine. The method <code>isVectorized</code> tells which path is used.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class VectorLifeEngine extends BitwiseLifeEngine {
+    private final static String KERNELCLASS = "ch.windmill.gameOfLife.LongVectorKernel";
+    private final static RowKernel KERNEL = loadKernel();
+    
+    /**
+     * Creates a new vector life engine object. This constructor invokes the main constructor with the default
+     * parameter <code>RuleSet.CONWAY</code>.
+     */
+    public VectorLifeEngine() {
+        this(RuleSet.CONWAY);
+    }
+    
+    /**
+     * Creates a new vector life engine object.
+     * @param rules Set of rules to define the evolve process.
+     */
+    public VectorLifeEngine(final RuleSet rules) {
+        super(rules);
+    }
+    
+    /**
+     * Creates a new vector life engine object.
+     * @param rule The compiled rule to define the evolve process.
+     */
+    public VectorLifeEngine(final Rule rule) {
+        super(rule);
+    }
+    
+    /**
+     * Check if the vector kernel is available.
+     * @return True if the words are evolved with the vector kernel, false if they are evolved one by one.
+     */
+    public static boolean isVectorized() {
+        return KERNEL != null;
+    }
+    
+    /**
+     * Load the vector kernel. The kernel class cant be initialized if the vector module is not added to the
+     * virtual machine.
+     * @return The kernel or null if it is not available.
+     */
+    private static RowKernel loadKernel() {
+        try {
+            return (RowKernel) Class.forName(KERNELCLASS).getDeclaredConstructor().newInstance();
+        } catch(ReflectiveOperationException | LinkageError | ClassCastException ex) {
+            return null;
+        }
+    }
+    
+    /**
+     * Calculate the next generation of a region. Each row is calculated by the vector kernel, without the kernel
+     * the region is calculated by the bitwise engine.
+     * @param current The current generation.
+     * @param next The grid to write the next generation into. It must have the same size as the current grid.
+     * @param from The index of the first row.
+     * @param to The index after the last row.
+     * @param fromWord The index of the first word.
+     * @param toWord The index after the last word.
+     */
+    @Override
+    public void evolveRegion(final BitGrid current, final BitGrid next, final int from, final int to,
+            final int fromWord, final int toWord) {
+        if(KERNEL == null) {
+            super.evolveRegion(current, next, from, to, fromWord, toWord);
+            return;
+        }
+        final int birth = getRule().getBirthMask();
+        final int remain = getRule().getRemainMask();
+        final long[] mask = current.getInnerMask();
+        
+        for(int i = from; i < to; i++) {
+            KERNEL.evolveRow(current.getRow(i-1), current.getRow(i), current.getRow(i+1), next.getRow(i), mask,
+                    fromWord, toWord, birth, remain);
+        }
+    }
+}
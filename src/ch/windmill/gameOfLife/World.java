@@ -1,19 +1,66 @@
 package ch.windmill.gameOfLife;
 
 import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.util.Collections;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import ch.windmill.gameOfLife.metrics.WorldMetrics;
 
 /**
- * This class provides the world in a game of life. The world has a 2D array of cells, this is the 
+ * This class provides the world in a game of life. The world has a bit-packed grid of cells, this is the
  * organism. It can start the life evolution with a <code>gameOfLife.LifeEngine</code>. The size of the world
  * is defined by the xaxis and yaxis fields.
+ * <br>
+ * A world can evolve its generations on several threads. The rows are split into bands which are evolved on a
+ * fork/join pool. If the tracking of active tiles is enabled, only the tiles with a changed neighbourhood are
+ * evolved.
+ * <br>
+ * The topology of the world defines the neighbours of the cells at the edge. Before each generation the border of
+ * the grid is filled with these neighbours, so the engines don't need to check the position of a cell.
+ * <br>
+ * If the tracking of dirty regions is enabled, the world collects the tiles that were changed by the generations
+ * and the edits since the last frame. A user interface only has to redraw these regions.
+ * <br>
+ * If a history is enabled, the world records each generation into a <code>gameOfLife.GenerationHistory</code>
+ * and can be moved back and forth to a recorded generation. If the cycle detection is enabled, the world keeps an
+ * incremental hash of its generation and detects still lifes and oscillators with a
+ * <code>gameOfLife.CycleDetector</code>.
+ * <br>
+ * The population is kept up to date by the generations and the edits, the births and deaths of a generation are
+ * counted from the words that were changed by the generation.
+ * <br>
+ * A world is not thread safe, it has to be changed by one thread at a time. Other threads read the world through
+ * immutable snapshots of completed generations, which are published with a lock-free swap. A new generation is
+ * only copied into a snapshot if the last snapshot was read, other changes like the edits are published at once.
+ * Other threads change cells through a queue of edits, the edits are applied between two generations.
  * @author Cyrill Jauner
  * @version 1.0.0
  */
 public class World {
+    private final static int MINBANDROWS = 16;
+    
     private LifeEngine engine;
-    private Cell[][] map;
+    private BitGrid grid, nextGrid;
     private int xAxis, yAxis, cellSize;
+    private ForkJoinPool pool, ownPool;
+    private TileTracker tracker;
+    private DirtyRegions dirty;
+    private GenerationHistory history;
+    private boolean historyEdited;
+    private CycleDetector cycles;
+    private Topology topology;
+    private long generation;
+    private int population, births, deaths;
+    private final AtomicReference<GenerationSnapshot> snapshot;
+    private volatile boolean snapshotRequested;
+    private boolean snapshotStale;
+    private final ConcurrentLinkedQueue<Long> edits;
+    private final WorldMetrics metrics;
     
     /**
      * Creates a new world object. This constructor invokes the main constructor with the given parameters
@@ -37,8 +84,8 @@ public class World {
     }
     
     /**
-     * Creates a new world object. This constructor initialize the 2D cell array and create a cell for each
-     * place.
+     * Creates a new world object. This constructor initialize the grid of the current generation and the grid
+     * for the next generation.
      * @param height The horizontal size in pixels.
      * @param width The vertical size in pixels.
      * @param cellSize The size of the cell in pixels.
@@ -50,19 +97,28 @@ public class World {
         xAxis = height / cellSize;
         yAxis = width / cellSize;
         
-        map = new Cell[xAxis][yAxis];
-        initializeMap();
+        grid = new BitGrid(xAxis, yAxis);
+        nextGrid = new BitGrid(xAxis, yAxis);
+        topology = Topology.DEAD;
+        edits = new ConcurrentLinkedQueue<>();
+        metrics = new WorldMetrics();
+        snapshot = new AtomicReference<>(new GenerationSnapshot(grid, 0, 0, 0, 0, cellSize, null, null));
     }
     
     /**
-     * Create cell objects and save their references into the 2D cell array.
+     * The number of generations since the world was created or killed.
+     * @return The generation counter.
      */
-    private void initializeMap() {
-        for(int i = 0; i < xAxis; i++) {
-            for(int j = 0; j < yAxis; j++) {
-                map[i][j] = new Cell(false, cellSize);
-            }
-        }
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Set the generation counter, e.g. after a saved generation was loaded.
+     * @param generation The generation counter.
+     */
+    public void setGeneration(final long generation) {
+        this.generation = generation;
     }
     
     /**
@@ -98,58 +154,431 @@ public class World {
     }
     
     /**
-     * Get the reference to the cell object with the coordinates x and y.
+     * Get the grid of the current generation. The grid is replaced after each generation, so the reference
+     * should not be kept.
+     * @return The grid of the current generation.
+     */
+    public BitGrid getGrid() {
+        return grid;
+    }
+    
+    /**
+     * Get a cell object with the coordinates x and y. The cell is a view of the grid, every change of its
+     * living state will be written into the current generation.
      * @param x The position in the x axis.
      * @param y The position in the y axis.
-     * @return Refernce to the cell object.
+     * @return Reference to the cell object.
      */
     public Cell getCell(final int x, final int y) {
-        return map[x][y];
+        return new CellView(x, y);
     }
     
     /**
-     * The 2D array of cells.
+     * The 2D array of cells. This method creates a view for each cell, it should not be used for every
+     * generation.
      * @return The 2D array of cells.
      */
     public Cell[][] getMap() {
+        Cell[][] map = new Cell[xAxis][yAxis];
+        for(int i = 0; i < xAxis; i++) {
+            for(int j = 0; j < yAxis; j++) {
+                map[i][j] = new CellView(i, j);
+            }
+        }
         return map;
     }
     
+    /**
+     * Check if the cell with the coordinates x and y is alive.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return True if the cell is alive, otherwise false.
+     */
+    public boolean isAlive(final int x, final int y) {
+        return grid.get(x, y);
+    }
+    
+    /**
+     * Change the living state of the cell with the coordinates x and y.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param isAlive True to set the cell alive, false to set it dead.
+     */
+    public void setAlive(final int x, final int y, final boolean isAlive) {
+        final int w = (y + 1) >>> 6;
+        final long before = grid.getRow(x)[w];
+        
+        grid.set(x, y, isAlive);
+        population += Long.bitCount(grid.getRow(x)[w]) - Long.bitCount(before);
+        if(cycles != null) {
+            final long mask = grid.getInnerMask()[w];
+            cycles.edit(x * grid.getWordsPerRow() + w, before & mask, grid.getRow(x)[w] & mask);
+        }
+        if(tracker != null) {
+            tracker.mark(x, y);
+        }
+        if(dirty != null) {
+            dirty.mark(x, y);
+        }
+        historyEdited = true;
+    }
+    
+    /**
+     * Queue a change of the living state of a cell. This method can be invoked by any thread, the edit is applied
+     * by the method <code>applyEdits</code> before the next generation. Edits outside of the world are ignored.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param isAlive True to set the cell alive, false to set it dead.
+     */
+    public void queueEdit(final int x, final int y, final boolean isAlive) {
+        if(x < 0 || y < 0) {
+            return;
+        }
+        edits.add(((long) x << 32) | (((long) y << 1) & 0xffffffffL) | (isAlive ? 1 : 0));
+    }
+    
+    /**
+     * Apply the queued edits in the order they were queued. Edits outside of the world are ignored. This method
+     * is invoked by <code>startEngine</code>, it has to be invoked by the thread that changes the world.
+     * @return True if at least one edit was applied.
+     */
+    public boolean applyEdits() {
+        final boolean applied = pollEdits();
+        
+        if(applied) {
+            publish(true);
+        }
+        return applied;
+    }
+    
+    /**
+     * Get the latest snapshot of a completed generation. The snapshot never changes, it is consistent even if
+     * the world is evolved by another thread. Reading a snapshot requests a new one, which is published after the
+     * next generation.
+     * @return The latest snapshot.
+     */
+    public GenerationSnapshot getSnapshot() {
+        snapshotRequested = true;
+        return snapshot.get();
+    }
+    
+    /**
+     * Set the number of threads to evolve a generation. A value of 1 evolves the generations on the calling
+     * thread. Otherwise a new fork/join pool with the given parallelism is created. A pool that was created by
+     * this method before is shut down.
+     * @param threads The number of threads.
+     * @throws IllegalArgumentException The number of threads is lower than 1.
+     */
+    public void setThreads(final int threads) throws IllegalArgumentException {
+        if(threads < 1) {
+            throw new IllegalArgumentException("The number of threads must be greater than 0");
+        }
+        final ForkJoinPool p = threads == 1 ? null : new ForkJoinPool(threads);
+        
+        setPool(p);
+        ownPool = p;
+    }
+    
+    /**
+     * Set the fork/join pool to evolve a generation. The pool can be shared with other worlds, it is not shut
+     * down by this world. Only a pool that was created by the method <code>setThreads</code> is shut down when it
+     * is replaced. A null reference evolves the generations on the calling thread.
+     * @param pool The pool or null.
+     */
+    public void setPool(final ForkJoinPool pool) {
+        if(ownPool != null && ownPool != pool) {
+            ownPool.shutdown();
+            ownPool = null;
+        }
+        this.pool = pool;
+    }
+    
+    /**
+     * Get the number of threads to evolve a generation.
+     * @return The number of threads.
+     */
+    public int getThreads() {
+        return pool == null ? 1 : pool.getParallelism();
+    }
+    
+    /**
+     * Get the topology of the world.
+     * @return The topology.
+     */
+    public Topology getTopology() {
+        return topology;
+    }
+    
+    /**
+     * Set the topology of the world. Every tile is evolved in the next generation.
+     * @param topology The topology.
+     */
+    public void setTopology(final Topology topology) {
+        this.topology = topology;
+        if(topology == Topology.DEAD) {                 // the border is not filled before each generation
+            grid.fillBorder(topology);
+            nextGrid.fillBorder(topology);
+        }
+        setTracking(isTracking());
+    }
+    
+    /**
+     * Enable or disable the tracking of active tiles. Every tile is evolved in the next generation after the
+     * tracking is enabled. If the grid of the current generation was changed directly, this method has to be
+     * invoked again.
+     * @param tracking True to enable the tracking, false to disable it.
+     */
+    public void setTracking(final boolean tracking) {
+        tracker = tracking ? new TileTracker(grid, topology.isWrapping()) : null;
+    }
+    
+    /**
+     * Check if the tracking of active tiles is enabled.
+     * @return True if the tracking is enabled.
+     */
+    public boolean isTracking() {
+        return tracker != null;
+    }
+    
+    /**
+     * Enable or disable the tracking of dirty regions. After the tracking is enabled, every tile is dirty.
+     * @param tracking True to enable the tracking, false to disable it.
+     */
+    public void setDirtyTracking(final boolean tracking) {
+        dirty = tracking ? new DirtyRegions(grid) : null;
+    }
+    
+    /**
+     * Check if the tracking of dirty regions is enabled.
+     * @return True if the tracking is enabled.
+     */
+    public boolean isDirtyTracking() {
+        return dirty != null;
+    }
+    
+    /**
+     * Take the regions that were changed since the last invocation of this method. The regions are rectangles
+     * of whole tiles in cell coordinates. If the tracking of dirty regions is disabled, the whole world is
+     * returned. If the snapshots of this world are read, the regions are taken by the snapshots instead.
+     * @return The dirty regions.
+     */
+    public List<Rectangle> takeDirtyRegions() {
+        final DirtyRegions d = dirty;
+        
+        if(d == null) {
+            return Collections.singletonList(new Rectangle(0, 0, xAxis, yAxis));
+        }
+        return d.take();
+    }
+    
+    /**
+     * Enable or disable the history of the generations. The history starts with the current generation.
+     * @param budget The maximum memory of the history in bytes, 0 disables the history.
+     * @throws IllegalArgumentException The budget is negative.
+     */
+    public void setHistory(final long budget) throws IllegalArgumentException {
+        if(budget < 0) {
+            throw new IllegalArgumentException("The budget of the history must not be negative");
+        }
+        history = budget > 0 ? new GenerationHistory(budget) : null;
+        recordHistory();
+    }
+    
+    /**
+     * Get the history of the generations.
+     * @return The history or null if the history is disabled.
+     */
+    public GenerationHistory getHistory() {
+        return history;
+    }
+    
+    /**
+     * Move the world to a recorded generation. The cells that were edited since the last generation are reset.
+     * The next generation is evolved from the restored generation and replaces the newer generations of the
+     * history.
+     * @param generation The generation counter.
+     * @return True if the generation was restored, false if the history is disabled or doesnt have the
+     * generation.
+     */
+    public boolean seekHistory(final long generation) {
+        if(history == null || !history.contains(generation)) {
+            return false;
+        }
+        pollEdits();
+        if(historyEdited) {
+            history.restore(grid);
+            markDirty();
+            historyEdited = false;
+        }
+        history.seek(generation, grid, dirty);
+        this.generation = generation;
+        rehash();
+        recount();
+        markAll();
+        publish(true);
+        return true;
+    }
+    
+    /**
+     * Enable or disable the detection of still lifes and oscillators. The hash of the current generation is
+     * calculated when the detection is enabled, after that it is updated with every generation.
+     * @param maxPeriod The maximum period that is detected, 0 disables the detection.
+     * @throws IllegalArgumentException The maximum period is negative.
+     */
+    public void setCycleDetection(final int maxPeriod) throws IllegalArgumentException {
+        if(maxPeriod < 0) {
+            throw new IllegalArgumentException("The maximum period must not be negative");
+        }
+        cycles = maxPeriod > 0 ? new CycleDetector(maxPeriod) : null;
+        rehash();
+    }
+    
+    /**
+     * Get the metrics of this world. The metrics are always recorded, they can be registered as an MXBean.
+     * @return The metrics.
+     */
+    public WorldMetrics getMetrics() {
+        return metrics;
+    }
     
     /**
-     * Set the rules for the life engine.
+     * Get the cycle detector of this world.
+     * @return The cycle detector or null if the detection is disabled.
+     */
+    public CycleDetector getCycleDetector() {
+        return cycles;
+    }
+    
+    /**
+     * Get the number of tiles that were evolved in the last generation. If the tracking is disabled, every tile
+     * is evolved.
+     * @return The number of active tiles.
+     */
+    public int getActiveTiles() {
+        return tracker == null ? getNumberOfTiles() : tracker.getActiveTiles();
+    }
+    
+    /**
+     * Get the number of tiles. A tile has 64 rows and 64 columns.
+     * @return The number of tiles.
+     */
+    public int getNumberOfTiles() {
+        return ((xAxis + TileTracker.TILEROWS - 1) / TileTracker.TILEROWS) * grid.getWordsPerRow();
+    }
+    
+    /**
+     * Set the rules for the life engine. Every tile is evolved in the next generation.
      * @param r Rule set.
      */
     public void setEngineRules(final RuleSet r) {
         engine.setRules(r);
+        markAll();
+    }
+    
+    /**
+     * Set a compiled rule for the life engine. Every tile is evolved in the next generation.
+     * @param r The compiled rule.
+     */
+    public void setEngineRule(final Rule r) {
+        engine.setRule(r);
+        markAll();
     }
     
     /**
-     * Evolve the current generation of cells. Start the engine to calculate a new generation.
+     * Evolve the current generation of cells. Start the engine to calculate a new generation into the second
+     * grid and swap the grids afterwards. If this world has a fork/join pool, the rows are split into bands
+     * which are evolved in parallel.
+     * <br>
+     * The border of a world with a dead topology stays empty, it doesnt need to be filled. The queued edits are
+     * applied before the generation is evolved.
      */
     public void startEngine() {
-        boolean[][] newGen = engine.evolve(map);
-        
-        for(int i = 0; i < newGen.length; i++) {
-            for(int j = 0; j < newGen[0].length; j++) {
-                if(newGen[i][j]) {
-                    map[i][j].setAlive(true);
-                } else {
-                    map[i][j].setAlive(false);
-                }
+        pollEdits();
+        
+        final BitGrid current = grid, next = nextGrid;
+        final TileTracker t = tracker;
+        final long start = System.nanoTime();
+        final long allocated = WorldMetrics.getThreadAllocatedBytes();
+        
+        if(topology != Topology.DEAD) {
+            current.fillBorder(topology);
+        }
+        if(t != null) {
+            if(pool == null) {
+                t.evolve(engine, current, next, 0, t.getTileRows());
+            } else {
+                pool.invoke(new EvolveTask((from, to) -> t.evolve(engine, current, next, from, to), 0,
+                        t.getTileRows(), 1));
+            }
+            t.swap();
+            if(dirty != null) {
+                dirty.mark(t);
             }
+            countChanges(current, next, t);
+        } else if(pool == null) {
+            engine.evolve(current, next);
+            countChanges(current, next, null);
+        } else {
+            final LongAdder born = new LongAdder(), died = new LongAdder();
+            pool.invoke(new EvolveTask((from, to) -> {
+                engine.evolveRows(current, next, from, to);
+                final long changes = countChanges(current, next, from, to, 0, current.getWordsPerRow());
+                born.add(changes >>> 32);
+                died.add(changes & 0xffffffffL);
+            }, 0, xAxis, Math.max(MINBANDROWS, xAxis / (pool.getParallelism() * 4))));
+            births = born.intValue();
+            deaths = died.intValue();
+        }
+        population += births - deaths;
+        if(t == null && dirty != null) {
+            dirty.mark(current, next);
         }
+        grid = next;
+        nextGrid = current;
+        generation++;
+        if(cycles != null) {
+            cycles.evolve(current, next, t, generation);
+        }
+        recordHistory();
+        metrics.recordGeneration(System.nanoTime() - start,
+                allocated < 0 ? -1 : WorldMetrics.getThreadAllocatedBytes() - allocated, population,
+                (long) getActiveTiles() * TileTracker.TILEROWS * Long.SIZE);
+        publish(false);
     }
     
     /**
-     * Kill every cell of the current generation.
+     * Evolve the current generation by a number of generations with a HashLife engine. The engine loads the
+     * current generation, jumps over the generations and stores the result back into this world. The HashLife
+     * engine simulates an unbounded world, cells that leave this world are lost and cells at the edge evolve
+     * as if the world would continue.
+     * @param hashLife The HashLife engine.
+     * @param generations The number of generations.
+     */
+    public void advance(final HashLifeEngine hashLife, final long generations) {
+        hashLife.load(grid);
+        hashLife.advance(generations);
+        hashLife.store(grid);
+        generation += generations;
+        recordHistory();
+        rehash();
+        recount();
+        markAll();
+        markDirty();
+        publish(true);
+    }
+    
+    /**
+     * Kill every cell of the current generation and reset the generation counter.
      */
     public void killGeneration() {
-        for(int i = 0; i < xAxis; i++) {
-            for(int j = 0; j < yAxis; j++) {
-                map[i][j].setAlive(false);
-            }
-        }
+        grid.clear();
+        generation = 0;
+        recordHistory();
+        rehash();
+        recount();
+        markAll();
+        markDirty();
+        publish(true);
     }
     
     /**
@@ -159,48 +588,90 @@ public class World {
      * @throws IllegalArgumentException Illegal percentage.
      */
     public void randomGeneration(final double percentAlive) throws IllegalArgumentException {
+        randomGeneration(percentAlive, new Random());
+    }
+    
+    /**
+     * Create a random generation with the given random number generator. A generator with a fixed seed always
+     * creates the same generation, so runs can be compared.
+     * @param percentAlive The percentage of living cells.
+     * @param ran The random number generator.
+     * @throws IllegalArgumentException Illegal percentage.
+     */
+    public void randomGeneration(final double percentAlive, final Random ran) throws IllegalArgumentException {
         int aliveCells = (int) (xAxis*yAxis*percentAlive);
-        Random ran = new Random();
-        Cell c = null;
+        int x, y;
         
         if(percentAlive <= 1.0 || percentAlive > 0.0) {
             while(aliveCells > 0) {
-                if(!(c = getCell((int) (xAxis * ran.nextDouble()), (int) (yAxis * ran.nextDouble()))).isAlive()) {
-                    c.setAlive(true);
+                x = (int) (xAxis * ran.nextDouble());
+                y = (int) (yAxis * ran.nextDouble());
+                if(!grid.get(x, y)) {
+                    grid.set(x, y, true);
                     aliveCells--;
                 }
             }
         } else {
             throw new IllegalArgumentException("The parameter must be greater than 0.0f and lower or equal 1.0f ");
         }
+        recordHistory();
+        rehash();
+        recount();
+        markAll();
+        markDirty();
+        publish(true);
     }
     
     /**
-     * Draw each cell to the given graphics context.
+     * Draw each cell to the given graphics context. Each cell costs two graphics calls, a
+     * <code>gameOfLife.WorldRenderer</code> draws the whole world with one call.
      * @param g The graphic context to draw to.
      */
     public void drawWorld(final Graphics g) {
         for(int i = 0; i < xAxis; i++) {
             for(int j = 0; j < yAxis; j++) {
-                map[i][j].draw(g, i*cellSize, j*cellSize);
+                g.setColor(grid.get(i, j) ? Cell.COLORALIVE : Cell.COLORDEAD);
+                g.fillRect(i*cellSize, j*cellSize, cellSize-1, cellSize-1);
             }
         }
     }
     
     /**
-     * Count the number of alive cells.
+     * Notify the world that the grid of the current generation was changed directly. Every tile is evolved in the
+     * next generation, every region is dirty and a snapshot is published.
+     */
+    public void invalidate() {
+        recordHistory();
+        rehash();
+        recount();
+        markAll();
+        markDirty();
+        publish(true);
+    }
+    
+    /**
+     * Count the number of alive cells. The population is kept up to date by the generations and edits, so this
+     * method doesnt scan the grid.
      * @return The number of alive cells.
      */
     public int countAliveCells() {
-        int num = 0;
-        for(int i = 0; i < xAxis; i++) {
-            for(int j = 0; j < yAxis; j++) {
-                if(map[i][j].isAlive()) {
-                    num++;
-                }
-            }
-        }
-        return num;
+        return population;
+    }
+    
+    /**
+     * Get the number of cells that were born in the last generation.
+     * @return The number of births, 0 if the generation was not evolved by <code>startEngine</code>.
+     */
+    public int getBirths() {
+        return births;
+    }
+    
+    /**
+     * Get the number of cells that died in the last generation.
+     * @return The number of deaths, 0 if the generation was not evolved by <code>startEngine</code>.
+     */
+    public int getDeaths() {
+        return deaths;
     }
     
     /**
@@ -212,39 +683,217 @@ public class World {
     }
     
     /**
-     * Create a new 2D array of cells and save it in the map field. This method invokes the fillWorldWithCells
-     * method to create new cell objects and save the live states of the old map.
+     * Create a new grid and save it in the grid field. The living states of the old grid are copied word by
+     * word into the new grid.
      * @param height The horizontal size in pixels.
      * @param width The vertical size in pixels.
      * @param cellSize The size of the cell in pixels.
      */
     public void resize(final int height, final int width, final int cellSize) {
+        BitGrid n;
+        
         this.xAxis = height / cellSize;
         this.yAxis = width / cellSize;
         this.cellSize = cellSize;
-        map = fillWorldWithCells(map, new Cell[xAxis][yAxis]);
+        
+        n = new BitGrid(xAxis, yAxis);
+        n.copyFrom(grid);
+        grid = n;
+        nextGrid = new BitGrid(xAxis, yAxis);
+        setTracking(isTracking());
+        setDirtyTracking(isDirtyTracking());
+        recordHistory();
+        rehash();
+        recount();
+        publish(true);
+    }
+    
+    /**
+     * Record the current generation into the history, if the history is enabled. A generation that doesnt follow
+     * the last recorded generation clears the history.
+     */
+    private void recordHistory() {
+        if(history != null) {
+            history.record(grid, generation);
+        }
+        historyEdited = false;
+    }
+    
+    /**
+     * Count the population of the current generation in the grid. This method is invoked if the grid was changed
+     * by more than an edit, the births and deaths are reset.
+     */
+    private void recount() {
+        population = grid.countAlive();
+        births = 0;
+        deaths = 0;
+    }
+    
+    /**
+     * Count the births and deaths of a generation. If the world tracks its active tiles, only the changed tiles
+     * are compared.
+     * @param previous The generation before.
+     * @param current The new generation.
+     * @param t The tracker of the active tiles or null to compare every word.
+     */
+    private void countChanges(final BitGrid previous, final BitGrid current, final TileTracker t) {
+        final int wordsPerRow = current.getWordsPerRow();
+        long changes = 0;
+        
+        if(t == null) {
+            changes = countChanges(previous, current, 0, xAxis, 0, wordsPerRow);
+        } else {
+            for(int tr = 0; tr < t.getTileRows(); tr++) {
+                final int firstRow = tr * TileTracker.TILEROWS;
+                final int lastRow = Math.min(firstRow + TileTracker.TILEROWS, xAxis);
+                for(int tw = 0; tw < wordsPerRow; tw++) {
+                    if(t.isChanged(tr, tw)) {
+                        changes += countChanges(previous, current, firstRow, lastRow, tw, tw + 1);
+                    }
+                }
+            }
+        }
+        births = (int) (changes >>> 32);
+        deaths = (int) changes;
     }
     
     /**
-     * Fill the given array n of cells with new cells. If there is a cell on the same position in the array o
-     * this method will set the same live state for the new cell in the array n.
-     * @param o Old array of cells.
-     * @param n New array of cells.
-     * @return The reference to the array n.
+     * Count the births and deaths in a region of a generation. The births are returned in the upper 32 bits and
+     * the deaths in the lower 32 bits, so the results of several regions can be added.
+     * @param previous The generation before.
+     * @param current The new generation.
+     * @param fromRow The first row.
+     * @param toRow The row after the last row.
+     * @param fromWord The first word.
+     * @param toWord The word after the last word.
+     * @return The births and deaths.
      */
-    private Cell[][] fillWorldWithCells(final Cell[][] o, final Cell[][] n) {
-        boolean isAlive = false;
+    private static long countChanges(final BitGrid previous, final BitGrid current, final int fromRow,
+            final int toRow, final int fromWord, final int toWord) {
+        final long[] mask = current.getInnerMask();
+        long born = 0, died = 0;
         
-        for(int i = 0; i < n.length; i++) {
-            for(int j = 0; j < n[0].length; j++) {
-                isAlive = false;
-                if(i < o.length && j < o[0].length) {
-                    isAlive = o[i][j].isAlive();
+        for(int x = fromRow; x < toRow; x++) {
+            final long[] p = previous.getRow(x);
+            final long[] c = current.getRow(x);
+            for(int w = fromWord; w < toWord; w++) {
+                final long d = (p[w] ^ c[w]) & mask[w];
+                if(d != 0) {
+                    born += Long.bitCount(d & c[w]);
+                    died += Long.bitCount(d & p[w]);
                 }
-                n[i][j] = new Cell(isAlive, cellSize);
             }
         }
+        return born << 32 | died;
+    }
+    
+    /**
+     * Hash the current generation, if the cycle detection is enabled. The hashes of the generations before are
+     * cleared.
+     */
+    private void rehash() {
+        if(cycles != null) {
+            cycles.rehash(grid, generation);
+        }
+    }
+    
+    /**
+     * Mark every tile as changed, if the tracking of active tiles is enabled.
+     */
+    private void markAll() {
+        if(tracker != null) {
+            tracker.markAll();
+        }
+    }
+    
+    /**
+     * Apply the queued edits without publishing a snapshot.
+     * @return True if at least one edit was applied.
+     */
+    private boolean pollEdits() {
+        Long e;
+        boolean applied = false;
         
-        return n;
+        while((e = edits.poll()) != null) {
+            final int x = (int) (e >>> 32);
+            final int y = (int) (e & 0xffffffffL) >>> 1;
+            if(x < xAxis && y < yAxis) {
+                setAlive(x, y, (e & 1) != 0);
+                applied = true;
+            }
+        }
+        return applied;
+    }
+    
+    /**
+     * Publish a snapshot of the current generation, if the latest snapshot is older than the current generation.
+     * A generation is only published if the last snapshot was read, this method has to be invoked by the thread
+     * that evolves the world before it stops or waits.
+     */
+    public void publishSnapshot() {
+        if(snapshotStale) {
+            publish(true);
+        }
+    }
+    
+    /**
+     * Publish a snapshot of the current generation. If the snapshot is not forced and the last snapshot was not
+     * read, the snapshot is marked as stale instead. If a forced snapshot replaces a snapshot that was not read,
+     * the regions of the replaced snapshot are carried into the new one, so the reader doesnt miss them.
+     * @param force True to publish the snapshot even if the last snapshot was not read.
+     */
+    private void publish(final boolean force) {
+        if(!force && !snapshotRequested) {
+            snapshotStale = true;
+        } else {
+            final boolean unread = !snapshotRequested;
+            snapshotStale = false;
+            snapshotRequested = false;
+            final long start = System.nanoTime();
+            if(unread && dirty != null) {                   // the replaced snapshot was not drawn yet
+                dirty.mark(snapshot.get().getDirtyRegions());
+            }
+            final List<Rectangle> regions = dirty != null ? dirty.take() : null;
+            snapshot.set(new GenerationSnapshot(grid, generation, population, births, deaths, cellSize, regions,
+                    cycles));
+            metrics.recordCopy(System.nanoTime() - start);
+        }
+    }
+    
+    /**
+     * Mark every tile as dirty, if the tracking of dirty regions is enabled.
+     */
+    private void markDirty() {
+        if(dirty != null) {
+            dirty.markAll();
+        }
+    }
+    
+    /**
+     * Provides a cell that reads and writes its living state from the current generation of this world.
+     */
+    private class CellView extends Cell {
+        private final int x, y;
+        
+        /**
+         * Create a new cell view.
+         * @param x The position in the x axis.
+         * @param y The position in the y axis.
+         */
+        public CellView(final int x, final int y) {
+            super(false, cellSize);
+            this.x = x;
+            this.y = y;
+        }
+        
+        @Override
+        public boolean isAlive() {
+            return grid.get(x, y);
+        }
+        
+        @Override
+        public void setAlive(final boolean isAlive) {
+            World.this.setAlive(x, y, isAlive);
+        }
     }
 }
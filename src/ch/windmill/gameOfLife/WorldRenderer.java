@@ -0,0 +1,212 @@
+package ch.windmill.gameOfLife;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import javax.imageio.ImageIO;
+
+/**
+ * This class provides an offscreen renderer of a world. The cells are written straight into the int array of a
+ * <code>BufferedImage</code>, so a frame costs no graphics calls. The image can be drawn onto a component with
+ * one call or written into a file, the renderer doesn't need a display.
+ * <br>
+ * Each cell is a square of cell size pixels. The last row and column of the square is a gap with the background
+ * color, like the cells of <code>World.drawWorld</code>. Cells with a size of 1 pixel have no gap.
+ * <br>
+ * The methods without a snapshot read the current generation of the world, they have to be invoked by the thread
+ * that changes the world. A thread that draws a world evolved by another thread renders its snapshots instead.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class WorldRenderer {
+    public final static Color BACKGROUND = new Color(238, 238, 238);
+    
+    private final World world;
+    private final int alive, dead, background;
+    private BufferedImage image;
+    private int[] pixels;
+    private int cellSize;
+    
+    /**
+     * Creates a new renderer. This constructor invokes the main constructor with the default background color.
+     * @param world The world to render.
+     */
+    public WorldRenderer(final World world) {
+        this(world, BACKGROUND);
+    }
+    
+    /**
+     * Creates a new renderer. The image is created with the first frame.
+     * @param world The world to render.
+     * @param background The color of the gaps between the cells.
+     */
+    public WorldRenderer(final World world, final Color background) {
+        this.world = world;
+        this.alive = Cell.COLORALIVE.getRGB();
+        this.dead = Cell.COLORDEAD.getRGB();
+        this.background = background.getRGB();
+    }
+    
+    /**
+     * Get the image of the last frame. The image is reused by the next frame.
+     * @return The image or null if no frame was rendered.
+     */
+    public BufferedImage getImage() {
+        return image;
+    }
+    
+    /**
+     * Render the current generation of the world into the image. A new image is created if the size of the world
+     * or the cell size has changed.
+     * @return The image.
+     */
+    public BufferedImage render() {
+        checkImage(world.getXAxis(), world.getYAxis(), world.getCellSize());
+        renderRegion(world.getGrid(), 0, 0, world.getXAxis(), world.getYAxis());
+        return image;
+    }
+    
+    /**
+     * Render a snapshot of the world into the image. A new image is created if the size of the snapshot or the
+     * cell size has changed.
+     * @param snapshot The snapshot.
+     * @return The image.
+     */
+    public BufferedImage render(final GenerationSnapshot snapshot) {
+        return render(snapshot, 0, 0, snapshot.getXAxis(), snapshot.getYAxis());
+    }
+    
+    /**
+     * Render a rectangle of cells into the image. The other pixels of the image are not changed. If the image has
+     * to be created, the whole world is rendered.
+     * @param fromX The first position in the x axis.
+     * @param fromY The first position in the y axis.
+     * @param toX The position after the last cell in the x axis.
+     * @param toY The position after the last cell in the y axis.
+     * @return The image.
+     */
+    public BufferedImage render(final int fromX, final int fromY, final int toX, final int toY) {
+        final int xAxis = world.getXAxis(), yAxis = world.getYAxis();
+        
+        if(checkImage(xAxis, yAxis, world.getCellSize())) {
+            renderRegion(world.getGrid(), 0, 0, xAxis, yAxis);
+        } else {
+            renderRegion(world.getGrid(), Math.max(0, fromX), Math.max(0, fromY), Math.min(xAxis, toX),
+                    Math.min(yAxis, toY));
+        }
+        return image;
+    }
+    
+    /**
+     * Render a rectangle of cells of a snapshot into the image. The other pixels of the image are not changed. If
+     * the image has to be created, the whole snapshot is rendered.
+     * @param snapshot The snapshot.
+     * @param fromX The first position in the x axis.
+     * @param fromY The first position in the y axis.
+     * @param toX The position after the last cell in the x axis.
+     * @param toY The position after the last cell in the y axis.
+     * @return The image.
+     */
+    public BufferedImage render(final GenerationSnapshot snapshot, final int fromX, final int fromY, final int toX,
+            final int toY) {
+        final int xAxis = snapshot.getXAxis(), yAxis = snapshot.getYAxis();
+        
+        if(checkImage(xAxis, yAxis, snapshot.getCellSize())) {
+            renderRegion(snapshot.getGrid(), 0, 0, xAxis, yAxis);
+        } else {
+            renderRegion(snapshot.getGrid(), Math.max(0, fromX), Math.max(0, fromY), Math.min(xAxis, toX),
+                    Math.min(yAxis, toY));
+        }
+        return image;
+    }
+    
+    /**
+     * Render the current generation and draw the image onto a graphics context.
+     * @param g The graphics context to draw to.
+     */
+    public void draw(final Graphics g) {
+        g.drawImage(render(), 0, 0, null);
+    }
+    
+    /**
+     * Render the current generation and write the image into a file. The format is the extension of the file
+     * name, e.g. png.
+     * @param file The file to write.
+     * @throws IOException The file could not be written or the format is not supported.
+     */
+    public void write(final File file) throws IOException {
+        final String name = file.getName();
+        final String format = name.substring(name.lastIndexOf('.') + 1);
+        
+        if(!ImageIO.write(render(), format, file)) {
+            throw new IOException("Unsupported image format: "+format);
+        }
+    }
+    
+    /**
+     * Create a new image if the image doesnt match the size of the world.
+     * @param xAxis The size of the x axis.
+     * @param yAxis The size of the y axis.
+     * @param cs The size of the cells in pixels.
+     * @return True if a new image was created.
+     */
+    private boolean checkImage(final int xAxis, final int yAxis, final int cs) {
+        final int width = xAxis * cs;
+        final int height = yAxis * cs;
+        
+        if(image != null && cs == cellSize && image.getWidth() == width && image.getHeight() == height) {
+            return false;
+        }
+        cellSize = cs;
+        image = new BufferedImage(Math.max(1, width), Math.max(1, height), BufferedImage.TYPE_INT_RGB);
+        pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        return true;
+    }
+    
+    /**
+     * Write a rectangle of cells into the pixels. The first pixel row of each cell row is written cell by cell,
+     * the other pixel rows are copied from the first one. The time is recorded into the metrics of the world.
+     * @param grid The grid to render.
+     * @param fromX The first position in the x axis.
+     * @param fromY The first position in the y axis.
+     * @param toX The position after the last cell in the x axis.
+     * @param toY The position after the last cell in the y axis.
+     */
+    private void renderRegion(final BitGrid grid, final int fromX, final int fromY, final int toX, final int toY) {
+        final int cs = cellSize;
+        final int size = cs > 1 ? cs - 1 : 1;
+        final int width = image.getWidth();
+        final int left = fromX * cs;
+        final int length = (toX - fromX) * cs;
+        final long start = System.nanoTime();
+        
+        for(int j = fromY; j < toY; j++) {
+            final int w = (j + 1) >>> 6;
+            final int b = (j + 1) & 63;
+            final int first = j * cs * width;
+            int p = first + left;
+            
+            for(int i = fromX; i < toX; i++) {
+                final int color = ((grid.getRow(i)[w] >>> b) & 1) != 0 ? alive : dead;
+                for(int k = 0; k < size; k++) {
+                    pixels[p++] = color;
+                }
+                if(cs > 1) {
+                    pixels[p++] = background;
+                }
+            }
+            for(int k = 1; k < size; k++) {
+                System.arraycopy(pixels, first + left, pixels, first + k * width + left, length);
+            }
+            if(cs > 1) {
+                final int gap = first + (cs - 1) * width + left;
+                Arrays.fill(pixels, gap, gap + length, background);
+            }
+        }
+        world.getMetrics().recordRender(System.nanoTime() - start);
+    }
+}
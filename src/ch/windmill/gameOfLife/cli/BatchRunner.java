@@ -0,0 +1,462 @@
+package ch.windmill.gameOfLife.cli;
+
+import ch.windmill.gameOfLife.BitwiseLifeEngine;
+import ch.windmill.gameOfLife.BlockLifeEngine;
+import ch.windmill.gameOfLife.CycleDetector;
+import ch.windmill.gameOfLife.HashLifeEngine;
+import ch.windmill.gameOfLife.LifeEngine;
+import ch.windmill.gameOfLife.Rule;
+import ch.windmill.gameOfLife.RuleSet;
+import ch.windmill.gameOfLife.Topology;
+import ch.windmill.gameOfLife.UnboundedWorld;
+import ch.windmill.gameOfLife.VectorLifeEngine;
+import ch.windmill.gameOfLife.World;
+import ch.windmill.gameOfLife.WorldRenderer;
+import ch.windmill.gameOfLife.io.BinaryFormat;
+import ch.windmill.gameOfLife.io.PlaintextFormat;
+import ch.windmill.gameOfLife.io.RleFormat;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class provides a headless command line runner. It evolves one or more independent worlds as fast as
+ * possible and writes periodic snapshots and statistics. It doesn't need a display, the worlds are never drawn.
+ * <br>
+ * Every world is evolved on its own thread of a fixed thread pool, so many worlds are spread across the cores.
+ * A single world is evolved on the fork/join pool of the world instead.
+ * <br>
+ * The statistics are written as comma separated lines "world,generation,population,seconds" into the file
+ * stats.csv of the output directory, or to the standard output if there is no output directory. The snapshots
+ * are written in the plaintext format, the RLE format or in the binary format of
+ * <code>gameOfLife.io.BinaryFormat</code>. A binary input file restores the size, rule and generation counter of
+ * the saved world, so a run can be resumed from a snapshot of an earlier run. The rule of an RLE input file
+ * replaces the rule option.
+ * <br>
+ * A world can be stopped as soon as it has become a still life or an oscillator. The period is detected with the
+ * incremental hash of a <code>gameOfLife.CycleDetector</code>, the stable generation and period are written to
+ * the standard error. The HashLife engine jumps over generations, so its worlds are never detected as stable.
+ * <br>
+ * The unbounded engine evolves the living cells of a <code>gameOfLife.UnboundedWorld</code>, so a pattern can grow
+ * beyond the size of the world. The world is the window of the snapshots: before a snapshot is written, the cells
+ * inside of the world are stored into it. The statistics count the cells of the whole unbounded world and its
+ * worlds are never detected as stable either.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class BatchRunner {
+    private final static String USAGE = String.join("\n",
+            "Usage: java -cp GameOfLife.jar ch.windmill.gameOfLife.cli.BatchRunner [options]",
+            "  -w, --width <cells>        Width of the world (default 256)",
+            "  -h, --height <cells>       Height of the world (default 256)",
+            "  -g, --generations <n>      Number of generations (default 1000)",
+            "  -r, --rule <rule>          Ruleset name or rule string, e.g. CONWAY or B36/S23 (default CONWAY)",
+            "  -e, --engine <engine>      life, bitwise, block, vector, hashlife or unbounded (default bitwise)",
+            "  -t, --topology <topology>  DEAD, TORUS, KLEIN_BOTTLE or ALIVE_BORDER (default DEAD)",
+            "  -d, --density <d>          Density of the random generation, 0 < d <= 1 (default 0.2)",
+            "  -s, --seed <seed>          Seed of the random generation, world i uses seed + i (default 1)",
+            "  -i, --input <file>         Load the pattern (.cells, .rle) or binary snapshot instead of a",
+            "                             random generation",
+            "  -n, --worlds <n>           Number of independent worlds (default 1)",
+            "  -p, --threads <n>          Number of threads (default number of processors)",
+            "  -k, --snapshot-every <n>   Write a snapshot and statistics every n generations (default 0, off)",
+            "  -o, --output <dir>         Directory of the snapshots and statistics",
+            "  -x, --snapshot-format <f>  cells, rle, bin or bin-rle (default cells)",
+            "  -f, --image <format>       Write an image of each snapshot, e.g. png",
+            "  -c, --cell-size <pixels>   Size of a cell in the images (default 1)",
+            "  -a, --stop-stable <p>      Stop a world that repeats with a period up to p (default 0, off)");
+    
+    private int width, height, worlds, threads, cellSize, maxPeriod;
+    private long generations, snapshotEvery, seed;
+    private double density;
+    private Rule rule;
+    private String engine, imageFormat, snapshotFormat;
+    private Topology topology;
+    private File input, output;
+    private PrintStream stats;
+    private final LongAdder evolved;
+    
+    /**
+     * Creates a new batch runner with the default options.
+     */
+    public BatchRunner() {
+        width = 256;
+        height = 256;
+        generations = 1000;
+        rule = RuleSet.CONWAY.getRule();
+        engine = "bitwise";
+        topology = Topology.DEAD;
+        density = 0.2;
+        seed = 1;
+        worlds = 1;
+        threads = Runtime.getRuntime().availableProcessors();
+        cellSize = 1;
+        snapshotFormat = "cells";
+        evolved = new LongAdder();
+    }
+    
+    /**
+     * Start the batch runner. The option --help prints the usage and exits with the status 0, illegal options print
+     * the usage and exit with the status 2.
+     * @param args Console line arguments.
+     */
+    public static void main(String[] args) {
+        final BatchRunner runner = new BatchRunner();
+        
+        try {
+            if(runner.parseArguments(args)) {
+                System.out.println(USAGE);
+                System.exit(0);
+            }
+        } catch(IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        try {
+            runner.run();
+        } catch(IOException | ExecutionException | InterruptedException ex) {
+            System.err.println("Batch run failed: "+ex);
+            System.exit(1);
+        }
+    }
+    
+    /**
+     * Parse the console line arguments into the options of this runner. The parsing stops at the option --help.
+     * @param args Console line arguments.
+     * @return True if the usage was requested with the option --help.
+     * @throws IllegalArgumentException An argument is unknown or has an illegal value.
+     */
+    public boolean parseArguments(final String[] args) throws IllegalArgumentException {
+        for(int i = 0; i < args.length; i++) {
+            final String option = args[i];
+            if(option.equals("--help")) {
+                return true;
+            }
+            if(i + 1 >= args.length) {
+                throw new IllegalArgumentException("Missing value of the option "+option);
+            }
+            final String value = args[++i];
+            try {
+                switch(option) {
+                    case "-w": case "--width":
+                        width = positive(option, Integer.parseInt(value));
+                        break;
+                    case "-h": case "--height":
+                        height = positive(option, Integer.parseInt(value));
+                        break;
+                    case "-g": case "--generations":
+                        generations = Long.parseLong(value);
+                        if(generations < 0) {
+                            throw new IllegalArgumentException("The number of generations must not be negative");
+                        }
+                        break;
+                    case "-r": case "--rule":
+                        rule = parseRule(value);
+                        break;
+                    case "-e": case "--engine":
+                        createEngine(value, rule);
+                        engine = value;
+                        break;
+                    case "-t": case "--topology":
+                        topology = Topology.valueOf(value.toUpperCase());
+                        break;
+                    case "-d": case "--density":
+                        density = Double.parseDouble(value);
+                        if(density <= 0.0 || density > 1.0) {
+                            throw new IllegalArgumentException("The density must be greater than 0.0 and lower "
+                                    + "or equal 1.0");
+                        }
+                        break;
+                    case "-s": case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "-i": case "--input":
+                        input = new File(value);
+                        break;
+                    case "-n": case "--worlds":
+                        worlds = positive(option, Integer.parseInt(value));
+                        break;
+                    case "-p": case "--threads":
+                        threads = positive(option, Integer.parseInt(value));
+                        break;
+                    case "-k": case "--snapshot-every":
+                        snapshotEvery = Long.parseLong(value);
+                        break;
+                    case "-o": case "--output":
+                        output = new File(value);
+                        break;
+                    case "-x": case "--snapshot-format":
+                        snapshotFormat = value.toLowerCase();
+                        if(!snapshotFormat.matches("cells|rle|bin|bin-rle")) {
+                            throw new IllegalArgumentException("Unknown snapshot format: "+value);
+                        }
+                        break;
+                    case "-f": case "--image":
+                        imageFormat = value.toLowerCase();
+                        break;
+                    case "-c": case "--cell-size":
+                        cellSize = positive(option, Integer.parseInt(value));
+                        break;
+                    case "-a": case "--stop-stable":
+                        maxPeriod = Integer.parseInt(value);
+                        if(maxPeriod < 0) {
+                            throw new IllegalArgumentException("The period must not be negative");
+                        }
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown option "+option);
+                }
+            } catch(NumberFormatException ex) {
+                throw new IllegalArgumentException("Illegal number for the option "+option+": "+value);
+            }
+        }
+        if(imageFormat != null && output == null) {
+            throw new IllegalArgumentException("The option --image needs an output directory");
+        }
+        if(engine.equals("hashlife") || engine.equals("unbounded")) {
+            if(topology != Topology.DEAD) {
+                throw new IllegalArgumentException("The "+engine+" engine doesnt support the topology "+topology);
+            }
+            if(engine.equals("hashlife")) {
+                new HashLifeEngine(rule);
+            } else {
+                new UnboundedWorld(rule);
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * Evolve every world and write the snapshots and statistics. This method returns when every world reached
+     * the number of generations.
+     * @throws IOException The snapshots or statistics could not be written.
+     * @throws ExecutionException The evolve process of a world failed.
+     * @throws InterruptedException The runner was interrupted.
+     */
+    public void run() throws IOException, ExecutionException, InterruptedException {
+        final ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, worlds));
+        final List<Future<Long>> results = new ArrayList<>();
+        final long start = System.nanoTime();
+        long cells = 0;
+        
+        if(output != null) {
+            if(!output.isDirectory() && !output.mkdirs()) {
+                throw new IOException("Cannot create the output directory "+output);
+            }
+            stats = new PrintStream(new FileOutputStream(new File(output, "stats.csv")), false, "UTF-8");
+        } else {
+            stats = System.out;
+        }
+        stats.println("world,generation,population,seconds");
+        
+        try {
+            for(int i = 0; i < worlds; i++) {
+                final int index = i;
+                results.add(executor.submit(() -> runWorld(index, start)));
+            }
+            for(Future<Long> f : results) {
+                cells += f.get();
+            }
+        } finally {
+            executor.shutdownNow();
+            stats.flush();
+            if(stats != System.out) {
+                stats.close();
+            }
+        }
+        
+        final double seconds = (System.nanoTime() - start) / 1e9;
+        System.err.printf("%d worlds, %d generations in %.3f s, %.1f generations/s, %.3f ns/cell%n", worlds,
+                generations, seconds, evolved.sum() / seconds, cells == 0 ? 0.0 : seconds * 1e9 / cells);
+    }
+    
+    /**
+     * Create, evolve and write one world.
+     * @param index The index of the world.
+     * @param start The start time of the run in nanoseconds.
+     * @return The number of evolved cells.
+     * @throws IOException The snapshots could not be written.
+     */
+    private long runWorld(final int index, final long start) throws IOException {
+        final World world = new World(width * cellSize, height * cellSize, cellSize, createEngine(engine, rule));
+        final WorldRenderer renderer = imageFormat != null ? new WorldRenderer(world) : null;
+        final HashLifeEngine hashLife;
+        final UnboundedWorld unbounded;
+        final long step = snapshotEvery > 0 ? snapshotEvery : Math.max(1, generations);
+        
+        world.setTopology(topology);
+        if(worlds == 1 && threads > 1) {
+            world.setThreads(threads);
+        }
+        if(input != null && BinaryFormat.isBinary(input.toPath())) {
+            BinaryFormat.read(input.toPath(), world);
+        } else if(input != null) {
+            try(Reader in = new InputStreamReader(new FileInputStream(input), StandardCharsets.UTF_8)) {
+                if(input.getName().toLowerCase().endsWith(".rle")) {
+                    final Rule r = RleFormat.read(in, world, 0, 0);
+                    if(r != null) {
+                        world.setEngineRule(r);
+                    }
+                } else {
+                    PlaintextFormat.read(in, world, 0, 0);
+                }
+            }
+        } else {
+            world.randomGeneration(density, new Random(seed + index));
+        }
+        hashLife = engine.equals("hashlife") ? new HashLifeEngine(world.getEngine().getRule()) : null;
+        unbounded = engine.equals("unbounded") ? new UnboundedWorld(world.getEngine().getRule()) : null;
+        if(unbounded != null) {
+            unbounded.load(world, 0, 0);
+        }
+        world.setCycleDetection(maxPeriod);
+        final long first = world.getGeneration();
+        
+        while(world.getGeneration() < generations && !isStable(world)) {
+            final long n = Math.min(step, generations - world.getGeneration());
+            if(hashLife != null) {
+                world.advance(hashLife, n);
+            } else if(unbounded != null) {
+                for(long k = 0; k < n; k++) {
+                    unbounded.startEngine();
+                }
+                unbounded.store(world, 0, 0);
+                world.setGeneration(first + unbounded.getGeneration());
+            } else {
+                for(long k = 0; k < n && !isStable(world); k++) {
+                    world.startEngine();
+                }
+            }
+            if(snapshotEvery > 0 && world.getGeneration() < generations && !isStable(world)) {
+                writeSnapshot(index, world, unbounded, renderer, start);
+            }
+        }
+        writeSnapshot(index, world, unbounded, renderer, start);
+        if(isStable(world)) {
+            final CycleDetector c = world.getCycleDetector();
+            System.err.printf("world %d stable at generation %d, period %d%n", index, c.getStableGeneration(),
+                    c.getPeriod());
+        }
+        
+        world.setThreads(1);
+        evolved.add(world.getGeneration() - first);
+        return (long) world.getNumberOfCells() * (world.getGeneration() - first);
+    }
+    
+    /**
+     * Write the statistics line and, if there is an output directory, the snapshot of a world.
+     * @param index The index of the world.
+     * @param world The world.
+     * @param unbounded The unbounded world that was stored into the world or null if the world is evolved itself.
+     * @param renderer The renderer of the images or null if no image is written.
+     * @param start The start time of the run in nanoseconds.
+     * @throws IOException The snapshot could not be written.
+     */
+    private void writeSnapshot(final int index, final World world, final UnboundedWorld unbounded,
+            final WorldRenderer renderer, final long start) throws IOException {
+        final int population = unbounded != null ? unbounded.getPopulation() : world.countAliveCells();
+        final String name = String.format("world-%03d-gen-%d", index, world.getGeneration());
+        
+        if(renderer != null) {
+            renderer.write(new File(output, name+"."+imageFormat));
+        }
+        if(output != null && snapshotFormat.startsWith("bin")) {
+            BinaryFormat.write(world, new File(output, name+".bin").toPath(), snapshotFormat.equals("bin-rle"));
+        } else if(output != null && snapshotFormat.equals("rle")) {
+            final File f = new File(output, name+".rle");
+            try(Writer out = new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8)) {
+                RleFormat.write(world, out, "world "+index+" generation "+world.getGeneration());
+            }
+        } else if(output != null) {
+            final File f = new File(output, name+".cells");
+            try(Writer out = new OutputStreamWriter(new FileOutputStream(f), StandardCharsets.UTF_8)) {
+                PlaintextFormat.write(world, out, "world "+index+" generation "+world.getGeneration()+" rule "
+                        +world.getEngine().getRule());
+            }
+        }
+        synchronized(stats) {
+            stats.printf("%d,%d,%d,%.3f%n", index, world.getGeneration(), population,
+                    (System.nanoTime() - start) / 1e9);
+        }
+    }
+    
+    /**
+     * Check if the cycle detection of a world has detected a period.
+     * @param world The world.
+     * @return True if the world is a still life or an oscillator.
+     */
+    private static boolean isStable(final World world) {
+        return world.getCycleDetector() != null && world.getCycleDetector().isStable();
+    }
+    
+    /**
+     * Parse a rule. The value is the name of a ruleset or a rule string.
+     * @param value The name of the ruleset or the rule string.
+     * @return The compiled rule.
+     * @throws IllegalArgumentException The value is no ruleset and no valid rule string.
+     */
+    static Rule parseRule(final String value) throws IllegalArgumentException {
+        for(RuleSet r : RuleSet.values()) {
+            if(r.name().equalsIgnoreCase(value)) {
+                return r.getRule();
+            }
+        }
+        return Rule.parse(value);
+    }
+    
+    /**
+     * Create an engine by its name. The hashlife engine evolves with a <code>gameOfLife.HashLifeEngine</code>
+     * and the unbounded engine with a <code>gameOfLife.UnboundedWorld</code> that are created by the runner, the
+     * world itself gets the bitwise engine.
+     * @param name The name of the engine.
+     * @param rule The rule of the engine.
+     * @return The engine of the world.
+     * @throws IllegalArgumentException Unknown engine.
+     */
+    static LifeEngine createEngine(final String name, final Rule rule) throws IllegalArgumentException {
+        switch(name) {
+            case "life":
+                return new LifeEngine(rule);
+            case "block":
+                return new BlockLifeEngine(rule);
+            case "vector":
+                return new VectorLifeEngine(rule);
+            case "bitwise":
+            case "hashlife":
+            case "unbounded":
+                return new BitwiseLifeEngine(rule);
+            default:
+                throw new IllegalArgumentException("Unknown engine: "+name);
+        }
+    }
+    
+    /**
+     * Check that the value of an option is positive.
+     * @param option The option.
+     * @param value The value.
+     * @return The value.
+     * @throws IllegalArgumentException The value is not positive.
+     */
+    private static int positive(final String option, final int value) throws IllegalArgumentException {
+        if(value <= 0) {
+            throw new IllegalArgumentException("The value of the option "+option+" must be positive");
+        }
+        return value;
+    }
+}
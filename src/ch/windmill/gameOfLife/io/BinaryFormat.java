@@ -0,0 +1,401 @@
+package ch.windmill.gameOfLife.io;
+
+import ch.windmill.gameOfLife.BitGrid;
+import ch.windmill.gameOfLife.Rule;
+import ch.windmill.gameOfLife.World;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class provides a compact binary format of a generation. The file is memory mapped, the words of the grid
+ * are copied between the mapping and the rows of the grid without a buffer in between, so even large worlds are
+ * saved and loaded in milliseconds.
+ * <br>
+ * All values are little endian. The header has the following fields:
+ * <pre>
+ *  0  int    magic "GOLB"
+ *  4  short  version 1
+ *  6  short  flags, bit 0 is set if the data is run-length encoded
+ *  8  int    size of the x axis
+ * 12  int    size of the y axis
+ * 16  long   generation counter
+ * 24  int    number of data words
+ * 28  short  length of the rule string
+ * 30  byte[] rule string in B/S notation, padded with 0 to a multiple of 8 bytes
+ * </pre>
+ * The data are the rows of the grid, each row has <code>(yAxis + 65) / 64</code> words with the same layout as a
+ * row of a <code>gameOfLife.BitGrid</code>. The bits of the border are always 0. The run-length encoding
+ * replaces the runs of empty words: a positive word n is followed by n literal words, a negative word -n stands
+ * for n empty words.
+ * <br>
+ * The mapping of a file is released by the garbage collector. The data is written back by the operating system,
+ * a saved file survives a crash of the virtual machine but not a crash of the operating system.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class BinaryFormat {
+    public final static int MAGIC = 0x424c4f47;
+    public final static short VERSION = 1;
+    public final static short FLAGRLE = 1;
+    
+    private final static int HEADERSIZE = 30;
+    
+    private BinaryFormat() { }
+    
+    /**
+     * Save the current generation of a world into a file. An existing file is replaced.
+     * @param world The world to save.
+     * @param path The path of the file.
+     * @param compress True to run-length encode the data.
+     * @throws IOException The file could not be written or is larger than 2 GB.
+     */
+    public static void write(final World world, final Path path, final boolean compress) throws IOException {
+        final BitGrid grid = world.getGrid();
+        final byte[] rule = world.getEngine().getRule().toString().getBytes(StandardCharsets.US_ASCII);
+        final int dataOffset = (HEADERSIZE + rule.length + 7) & ~7;
+        final long dataWords = compress ? encode(grid, null) : (long) grid.getRows() * grid.getWordsPerRow();
+        final long size = dataOffset + dataWords * 8;
+        
+        if(size > Integer.MAX_VALUE) {
+            throw new IOException("The generation is too large for a binary file: "+size+" bytes");
+        }
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            final LongBuffer data;
+            
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            map.putInt(MAGIC);
+            map.putShort(VERSION);
+            map.putShort(compress ? FLAGRLE : 0);
+            map.putInt(grid.getRows());
+            map.putInt(grid.getColumns());
+            map.putLong(world.getGeneration());
+            map.putInt((int) dataWords);
+            map.putShort((short) rule.length);
+            map.put(rule);
+            
+            map.position(dataOffset);
+            data = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            if(compress) {
+                encode(grid, data);
+            } else {
+                writeRaw(grid, data);
+            }
+        }
+    }
+    
+    /**
+     * Load a generation from a file into a world. The world is resized if its size differs from the saved
+     * generation, the rule and the generation counter of the world are set. The generation is decoded into a new
+     * grid first, so the world is not changed if the file is not valid. This method has to be invoked by the
+     * thread that changes the world.
+     * @param path The path of the file.
+     * @param world The world to load into.
+     * @throws IOException The file could not be read or is not a valid binary file.
+     */
+    public static void read(final Path path, final World world) throws IOException {
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            final MappedByteBuffer map = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            final Header h = readHeader(map);
+            final LongBuffer data;
+            final BitGrid grid;
+            final Rule rule = parseRule(h.rule);
+            final int cs = world.getCellSize();
+            
+            if(map.capacity() < h.dataOffset + h.dataWords * 8L) {
+                throw new IOException("The binary file is truncated: "+path);
+            }
+            map.position(h.dataOffset);
+            data = map.slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+            data.limit(h.dataWords);
+            grid = new BitGrid(h.xAxis, h.yAxis);
+            if(h.compressed) {
+                decode(data, grid);
+            } else {
+                readRaw(data, grid);
+            }
+            
+            if(world.getXAxis() != h.xAxis || world.getYAxis() != h.yAxis) {
+                world.resize(h.xAxis * cs, h.yAxis * cs, cs);
+            }
+            world.setEngineRule(rule);
+            world.getGrid().copyFrom(grid);
+            world.setGeneration(h.generation);
+            world.invalidate();
+        }
+    }
+    
+    /**
+     * Read the header of a file.
+     * @param path The path of the file.
+     * @return The header.
+     * @throws IOException The file could not be read or is not a valid binary file.
+     */
+    public static Header readHeader(final Path path) throws IOException {
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer b = ByteBuffer.allocate((int) Math.min(ch.size(), HEADERSIZE + 0xffff));
+            
+            while(b.hasRemaining() && ch.read(b) >= 0) { }
+            b.flip();
+            return readHeader(b);
+        }
+    }
+    
+    /**
+     * Check if a file starts with the magic number of the binary format.
+     * @param path The path of the file.
+     * @return True if the file is a binary file.
+     * @throws IOException The file could not be read.
+     */
+    public static boolean isBinary(final Path path) throws IOException {
+        try(FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            final ByteBuffer b = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
+            
+            while(b.hasRemaining() && ch.read(b) >= 0) { }
+            return b.position() == 4 && b.getInt(0) == MAGIC;
+        }
+    }
+    
+    /**
+     * Read the header at the start of a buffer. The position of the buffer is moved behind the header.
+     * @param b The buffer.
+     * @return The header.
+     * @throws IOException The buffer doesnt start with a valid header.
+     */
+    private static Header readHeader(final ByteBuffer b) throws IOException {
+        final byte[] rule;
+        final Header h;
+        final long words;
+        
+        b.order(ByteOrder.LITTLE_ENDIAN);
+        if(b.remaining() < HEADERSIZE || b.getInt() != MAGIC) {
+            throw new IOException("Not a binary game of life file");
+        }
+        if(b.getShort() != VERSION) {
+            throw new IOException("Unsupported version of the binary format");
+        }
+        h = new Header();
+        h.compressed = (b.getShort() & FLAGRLE) != 0;
+        h.xAxis = b.getInt();
+        h.yAxis = b.getInt();
+        h.generation = b.getLong();
+        h.dataWords = b.getInt();
+        rule = new byte[b.getShort() & 0xffff];
+        if(h.xAxis <= 0 || h.yAxis <= 0 || h.dataWords < 0 || b.remaining() < rule.length) {
+            throw new IOException("Corrupt header of a binary game of life file");
+        }
+        b.get(rule);
+        h.rule = new String(rule, StandardCharsets.US_ASCII);
+        h.dataOffset = (HEADERSIZE + rule.length + 7) & ~7;
+        words = (long) h.xAxis * (((long) h.yAxis + 65) / 64);
+        if(h.dataOffset + words * 8 > Integer.MAX_VALUE || (!h.compressed && h.dataWords != words)) {
+            throw new IOException("Corrupt header of a binary game of life file");
+        }
+        return h;
+    }
+    
+    /**
+     * Parse the rule of a header.
+     * @param rule The rule string.
+     * @return The compiled rule.
+     * @throws IOException The rule string is not valid.
+     */
+    private static Rule parseRule(final String rule) throws IOException {
+        try {
+            return Rule.parse(rule);
+        } catch(IllegalArgumentException ex) {
+            throw new IOException("Invalid rule in a binary game of life file: "+rule, ex);
+        }
+    }
+    
+    /**
+     * Write the rows of a grid without compression. The border bits are cleared.
+     * @param grid The grid.
+     * @param data The buffer to write to.
+     */
+    private static void writeRaw(final BitGrid grid, final LongBuffer data) {
+        final long[] mask = grid.getInnerMask();
+        final long[] row = new long[grid.getWordsPerRow()];
+        
+        for(int x = 0; x < grid.getRows(); x++) {
+            final long[] r = grid.getRow(x);
+            for(int w = 0; w < row.length; w++) {
+                row[w] = r[w] & mask[w];
+            }
+            data.put(row);
+        }
+    }
+    
+    /**
+     * Read the rows of a grid without compression. The border bits are cleared.
+     * @param data The buffer to read from.
+     * @param grid The grid.
+     * @throws IOException The data doesnt match the size of the grid.
+     */
+    private static void readRaw(final LongBuffer data, final BitGrid grid) throws IOException {
+        final long[] mask = grid.getInnerMask();
+        
+        if(data.remaining() != (long) grid.getRows() * grid.getWordsPerRow()) {
+            throw new IOException("The data doesnt match the size of the generation");
+        }
+        for(int x = 0; x < grid.getRows(); x++) {
+            final long[] r = grid.getRow(x);
+            data.get(r);
+            for(int w = 0; w < r.length; w++) {
+                r[w] &= mask[w];
+            }
+        }
+    }
+    
+    /**
+     * Run-length encode the rows of a grid. The border bits are cleared. If the buffer is null, the words are only
+     * counted.
+     * @param grid The grid.
+     * @param data The buffer to write to or null.
+     * @return The number of encoded words.
+     */
+    private static long encode(final BitGrid grid, final LongBuffer data) {
+        final long[] mask = grid.getInnerMask();
+        long size = 0, literals = 0, empty = 0;
+        int token = 0;
+        
+        for(int x = 0; x < grid.getRows(); x++) {
+            final long[] r = grid.getRow(x);
+            for(int w = 0; w < r.length; w++) {
+                final long v = r[w] & mask[w];
+                if(v == 0) {
+                    if(literals > 0) {
+                        if(data != null) {
+                            data.put(token, literals);
+                        }
+                        literals = 0;
+                    }
+                    empty++;
+                } else {
+                    if(empty > 0) {
+                        if(data != null) {
+                            data.put(-empty);
+                        }
+                        size++;
+                        empty = 0;
+                    }
+                    if(literals == 0) {
+                        if(data != null) {
+                            token = data.position();
+                            data.put(0);
+                        }
+                        size++;
+                    }
+                    if(data != null) {
+                        data.put(v);
+                    }
+                    size++;
+                    literals++;
+                }
+            }
+        }
+        if(literals > 0 && data != null) {
+            data.put(token, literals);
+        }
+        if(empty > 0) {
+            if(data != null) {
+                data.put(-empty);
+            }
+            size++;
+        }
+        return size;
+    }
+    
+    /**
+     * Decode run-length encoded rows into a grid. The grid has to be empty. The border bits are cleared.
+     * @param data The buffer to read from.
+     * @param grid The grid.
+     * @throws IOException The data is corrupt or doesnt match the size of the grid.
+     */
+    private static void decode(final LongBuffer data, final BitGrid grid) throws IOException {
+        final long[] mask = grid.getInnerMask();
+        final int wordsPerRow = grid.getWordsPerRow();
+        final long total = (long) grid.getRows() * wordsPerRow;
+        long p = 0;
+        
+        while(data.hasRemaining()) {
+            final long t = data.get();
+            if(t < 0) {
+                if(t < p - total) {
+                    throw new IOException("Corrupt run-length encoded data");
+                }
+                p -= t;
+            } else if(t > 0 && t <= data.remaining() && p + t <= total) {
+                for(long end = p + t; p < end; p++) {
+                    final int w = (int) (p % wordsPerRow);
+                    grid.getRow((int) (p / wordsPerRow))[w] = data.get() & mask[w];
+                }
+            } else {
+                throw new IOException("Corrupt run-length encoded data");
+            }
+        }
+        if(p != total) {
+            throw new IOException("The data doesnt match the size of the generation");
+        }
+    }
+    
+    /**
+     * This class provides the header of a binary file.
+     */
+    public static final class Header {
+        private int xAxis, yAxis, dataWords, dataOffset;
+        private long generation;
+        private String rule;
+        private boolean compressed;
+        
+        private Header() { }
+        
+        /**
+         * The size of the x axis.
+         * @return The size of the x axis.
+         */
+        public int getXAxis() {
+            return xAxis;
+        }
+        
+        /**
+         * The size of the y axis.
+         * @return The size of the y axis.
+         */
+        public int getYAxis() {
+            return yAxis;
+        }
+        
+        /**
+         * The generation counter of the saved world.
+         * @return The generation counter.
+         */
+        public long getGeneration() {
+            return generation;
+        }
+        
+        /**
+         * The rule of the saved world in B/S notation.
+         * @return The rule string.
+         */
+        public String getRule() {
+            return rule;
+        }
+        
+        /**
+         * Check if the data is run-length encoded.
+         * @return True if the data is compressed.
+         */
+        public boolean isCompressed() {
+            return compressed;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package ch.windmill.gameOfLife.io;
+
+import ch.windmill.gameOfLife.World;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * This class provides the plaintext pattern format (.cells). Each line of the pattern is a row of cells, the
+ * character 'O' or '*' is a living cell and every other character is a dead cell. Lines that start with '!' are
+ * comments.
+ * <br>
+ * The character j of the row i is the cell with the coordinates x = j and y = i of a world.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class PlaintextFormat {
+    
+    private PlaintextFormat() { }
+    
+    /**
+     * Read a pattern into a world. The cell (0, 0) of the pattern is placed at the given position, cells outside
+     * of the world are ignored. The world is not killed before.
+     * @param in The reader to read from.
+     * @param world The world to read into.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @throws IOException The reader failed.
+     */
+    public static void read(final Reader in, final World world, final int x, final int y) throws IOException {
+        final BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        String line;
+        int row = 0;
+        
+        while((line = reader.readLine()) != null) {
+            if(line.startsWith("!")) {
+                continue;
+            }
+            for(int j = 0; j < line.length(); j++) {
+                final char c = line.charAt(j);
+                if((c == 'O' || c == '*') && isInside(world, x + j, y + row)) {
+                    world.setAlive(x + j, y + row, true);
+                }
+            }
+            row++;
+        }
+    }
+    
+    /**
+     * Write the current generation of a world. Every row is written with the full width of the world.
+     * @param world The world to write.
+     * @param out The writer to write to.
+     * @param name The name of the pattern, it is written as a comment. Null writes no name.
+     * @throws IOException The writer failed.
+     */
+    public static void write(final World world, final Writer out, final String name) throws IOException {
+        final char[] line = new char[world.getXAxis() + 1];
+        
+        if(name != null) {
+            out.write("!Name: "+name+"\n");
+        }
+        line[line.length-1] = '\n';
+        for(int j = 0; j < world.getYAxis(); j++) {
+            for(int i = 0; i < world.getXAxis(); i++) {
+                line[i] = world.isAlive(i, j) ? 'O' : '.';
+            }
+            out.write(line);
+        }
+        out.flush();
+    }
+    
+    /**
+     * Check if a position is inside of a world.
+     * @param world The world.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return True if the position is inside.
+     */
+    private static boolean isInside(final World world, final int x, final int y) {
+        return x >= 0 && x < world.getXAxis() && y >= 0 && y < world.getYAxis();
+    }
+}
@@ -0,0 +1,285 @@
+package ch.windmill.gameOfLife.io;
+
+import ch.windmill.gameOfLife.BitGrid;
+import ch.windmill.gameOfLife.Rule;
+import ch.windmill.gameOfLife.World;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+
+/**
+ * This class provides the run length encoded pattern format (.rle). The header line "x = 3, y = 3, rule = B3/S23"
+ * is followed by the runs of the rows, e.g. "bo$2bo$3o!". A run is an optional count and a tag, 'b' is a dead
+ * cell, 'o' is a living cell, '$' is the end of a row and '!' is the end of the pattern. Lines that start with
+ * '#' are comments.
+ * <br>
+ * The pattern is parsed line by line while it is read, the runs are never collected into a string, so large
+ * patterns need no more memory than the world. Like in the plaintext format, the run j of the row i is the cell
+ * with the coordinates x = j and y = i of a world.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class RleFormat {
+    private final static int LINELENGTH = 70;
+    
+    private RleFormat() { }
+    
+    /**
+     * Read a pattern into a world. The cell (0, 0) of the pattern is placed at the given position, cells outside
+     * of the world are ignored. The world is not killed before and its rule is not changed.
+     * @param in The reader to read from.
+     * @param world The world to read into.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @return The rule of the header or null if the pattern has no rule.
+     * @throws IOException The reader failed or the pattern is not valid.
+     */
+    public static Rule read(final Reader in, final World world, final int x, final int y) throws IOException {
+        final BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        final Parser parser = new Parser(world, x, y);
+        boolean first = true;
+        Rule rule = null;
+        String line;
+        
+        while(!parser.isFinished() && (line = reader.readLine()) != null) {
+            line = line.trim();
+            if(line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            if(first && line.startsWith("x")) {
+                rule = parseHeader(line);
+            } else {
+                parser.parse(line.toCharArray(), line.length());
+            }
+            first = false;
+        }
+        return rule;
+    }
+    
+    /**
+     * Write the current generation of a world. The pattern has the size of the world, dead cells at the end of
+     * a row and empty rows at the end of the world are omitted.
+     * @param world The world to write.
+     * @param out The writer to write to.
+     * @param name The name of the pattern, it is written as a comment. Null writes no name.
+     * @throws IOException The writer failed.
+     */
+    public static void write(final World world, final Writer out, final String name) throws IOException {
+        final BitGrid grid = world.getGrid();
+        final RunWriter runs = new RunWriter(out);
+        
+        if(name != null) {
+            out.write("#N "+name+"\n");
+        }
+        out.write("x = "+world.getXAxis()+", y = "+world.getYAxis()+", rule = "+world.getEngine().getRule()+"\n");
+        for(int j = 0; j < world.getYAxis(); j++) {
+            final int w = (j + 1) >>> 6;
+            final int b = (j + 1) & 63;
+            int i = 0;
+            
+            while(i < world.getXAxis()) {
+                final long state = (grid.getRow(i)[w] >>> b) & 1;
+                final int first = i;
+                while(i < world.getXAxis() && ((grid.getRow(i)[w] >>> b) & 1) == state) {
+                    i++;
+                }
+                if(state != 0) {
+                    runs.cells(first, i - first);
+                }
+            }
+            runs.endRow();
+        }
+        runs.finish();
+        out.flush();
+    }
+    
+    /**
+     * Parse the header line. Only the rule is used, the size of the pattern is given by its runs.
+     * @param line The header line.
+     * @return The rule or null if the header has no rule.
+     * @throws IOException The rule is not valid.
+     */
+    private static Rule parseHeader(final String line) throws IOException {
+        for(String field : line.split(",")) {
+            final int eq = field.indexOf('=');
+            if(eq < 0 || !field.substring(0, eq).trim().equalsIgnoreCase("rule")) {
+                continue;
+            }
+            String value = field.substring(eq + 1).trim();
+            if(value.indexOf(':') >= 0) {
+                value = value.substring(0, value.indexOf(':'));     // bounded grid suffix, e.g. ":T100,100"
+            }
+            try {
+                return Rule.parse(value);
+            } catch(IllegalArgumentException ex) {
+                throw new IOException("Invalid rule in the RLE header: "+value, ex);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * This class provides the state of the parser between two chunks of runs.
+     */
+    private static class Parser {
+        private final World world;
+        private final int x, y;
+        private int count, column, row;
+        private boolean finished;
+        
+        /**
+         * Creates a new parser at the first cell of the pattern.
+         * @param world The world to read into.
+         * @param x The position of the pattern in the x axis.
+         * @param y The position of the pattern in the y axis.
+         */
+        Parser(final World world, final int x, final int y) {
+            this.world = world;
+            this.x = x;
+            this.y = y;
+        }
+        
+        /**
+         * Check if the end of the pattern was read.
+         * @return True if the pattern is finished.
+         */
+        boolean isFinished() {
+            return finished;
+        }
+        
+        /**
+         * Parse a chunk of runs. A count can be split across two chunks.
+         * @param chunk The characters.
+         * @param length The number of characters in the chunk.
+         * @throws IOException The chunk has an illegal character.
+         */
+        void parse(final char[] chunk, final int length) throws IOException {
+            for(int k = 0; k < length && !finished; k++) {
+                final char c = chunk[k];
+                if(c >= '0' && c <= '9') {
+                    count = count * 10 + (c - '0');
+                    continue;
+                }
+                final int n = count == 0 ? 1 : count;
+                switch(c) {
+                    case 'b': case '.':
+                        column += n;
+                        break;
+                    case 'o':
+                        setAlive(n);
+                        column += n;
+                        break;
+                    case '$':
+                        row += n;
+                        column = 0;
+                        break;
+                    case '!':
+                        finished = true;
+                        break;
+                    case ' ': case '\t': case '\r': case '\n':
+                        continue;
+                    default:
+                        if(c < 'A' || c > 'Z') {
+                            throw new IOException("Illegal character in the RLE pattern: "+c);
+                        }
+                        setAlive(n);                                // state of a multi state pattern
+                        column += n;
+                }
+                count = 0;
+            }
+        }
+        
+        /**
+         * Set a run of cells alive. Cells outside of the world are ignored.
+         * @param n The length of the run.
+         */
+        private void setAlive(final int n) {
+            final int j = y + row;
+            final int from = Math.max(0, x + column);
+            final int to = (int) Math.min(world.getXAxis(), (long) x + column + n);
+            
+            if(j < 0 || j >= world.getYAxis()) {
+                return;
+            }
+            for(int i = from; i < to; i++) {
+                world.setAlive(i, j, true);
+            }
+        }
+    }
+    
+    /**
+     * This class provides the writer of the runs. The runs are written in lines of at most 70 characters, dead
+     * runs and row ends are only written before the next living run.
+     */
+    private static class RunWriter {
+        private final Writer out;
+        private final char[] token;
+        private int lineLength, column, rows;
+        
+        /**
+         * Creates a new run writer at the first cell of the pattern.
+         * @param out The writer to write to.
+         */
+        RunWriter(final Writer out) {
+            this.out = out;
+            this.token = new char[11];
+        }
+        
+        /**
+         * Write a run of living cells in the current row.
+         * @param first The first cell of the run.
+         * @param n The length of the run.
+         * @throws IOException The writer failed.
+         */
+        void cells(final int first, final int n) throws IOException {
+            if(rows > 0) {
+                token(rows, '$');
+                rows = 0;
+            }
+            if(first > column) {
+                token(first - column, 'b');
+            }
+            token(n, 'o');
+            column = first + n;
+        }
+        
+        /**
+         * End the current row.
+         */
+        void endRow() {
+            rows++;
+            column = 0;
+        }
+        
+        /**
+         * Write the end of the pattern.
+         * @throws IOException The writer failed.
+         */
+        void finish() throws IOException {
+            token(1, '!');
+            out.write('\n');
+        }
+        
+        /**
+         * Write a token. A new line is started if the token doesnt fit into the current line.
+         * @param n The count of the token.
+         * @param tag The tag of the token.
+         * @throws IOException The writer failed.
+         */
+        private void token(final int n, final char tag) throws IOException {
+            int p = token.length - 1;
+            
+            token[p] = tag;
+            for(int v = n; n > 1 && v > 0; v /= 10) {
+                token[--p] = (char) ('0' + v % 10);
+            }
+            if(lineLength + token.length - p > LINELENGTH) {
+                out.write('\n');
+                lineLength = 0;
+            }
+            out.write(token, p, token.length - p);
+            lineLength += token.length - p;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package ch.windmill.gameOfLife.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * This class provides a lock-free histogram of positive values, e.g. durations in nanoseconds. The buckets are
+ * log-linear like the buckets of an HdrHistogram: every power of two is split into 32 buckets of equal width, so
+ * every value is recorded with a relative error below 3 percent. Values from 0 to Long.MAX_VALUE fit into 1888
+ * buckets.
+ * <br>
+ * Recording a value is one atomic increment of a bucket and two adders, it never blocks and never allocates, so
+ * the histogram can record in a hot loop of any thread. A reader sees each recorded value, but a percentile that
+ * is read while values are recorded is not an exact snapshot.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class Histogram {
+    private final static int SUBBITS = 5;
+    private final static int SUBBUCKETS = 1 << SUBBITS;
+    private final static int BUCKETS = (64 - SUBBITS) * SUBBUCKETS;
+    
+    private final AtomicLongArray buckets;
+    private final LongAdder count, sum;
+    private final AtomicLong max;
+    
+    /**
+     * Creates a new empty histogram.
+     */
+    public Histogram() {
+        buckets = new AtomicLongArray(BUCKETS);
+        count = new LongAdder();
+        sum = new LongAdder();
+        max = new AtomicLong();
+    }
+    
+    /**
+     * Record a value. Negative values are recorded as 0.
+     * @param value The value.
+     */
+    public void record(final long value) {
+        final long v = Math.max(0, value);
+        
+        buckets.incrementAndGet(bucket(v));
+        count.increment();
+        sum.add(v);
+        if(v > max.get()) {
+            max.accumulateAndGet(v, Math::max);
+        }
+    }
+    
+    /**
+     * Get the number of recorded values.
+     * @return The number of values.
+     */
+    public long getCount() {
+        return count.sum();
+    }
+    
+    /**
+     * Get the largest recorded value.
+     * @return The largest value or 0 if no value was recorded.
+     */
+    public long getMax() {
+        return max.get();
+    }
+    
+    /**
+     * Get the mean of the recorded values.
+     * @return The mean or 0 if no value was recorded.
+     */
+    public double getMean() {
+        final long n = count.sum();
+        
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+    
+    /**
+     * Get the value at a percentile. The value is the middle of the bucket that holds the percentile.
+     * @param percentile The percentile between 0 and 100.
+     * @return The value or 0 if no value was recorded.
+     */
+    public long getValueAtPercentile(final double percentile) {
+        final long n = count.sum();
+        final long rank = Math.max(1, (long) Math.ceil(Math.min(100, Math.max(0, percentile)) / 100 * n));
+        long seen = 0;
+        
+        for(int i = 0; i < BUCKETS && n > 0; i++) {
+            seen += buckets.get(i);
+            if(seen >= rank) {
+                return Math.min(max.get(), value(i));
+            }
+        }
+        return n > 0 ? max.get() : 0;
+    }
+    
+    /**
+     * Get a snapshot of the count, mean, max and the common percentiles.
+     * @return The snapshot.
+     */
+    public HistogramSnapshot getSnapshot() {
+        return new HistogramSnapshot(getCount(), getMean(), getValueAtPercentile(50), getValueAtPercentile(90),
+                getValueAtPercentile(99), getMax());
+    }
+    
+    /**
+     * Remove every recorded value. Values that are recorded while the histogram is reset may be lost.
+     */
+    public void reset() {
+        for(int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+    
+    /**
+     * Get the bucket of a value. The values below 32 have a bucket each, a larger value is shifted to its 5
+     * highest bits, which select the bucket within its power of two.
+     * @param v The value.
+     * @return The index of the bucket.
+     */
+    private static int bucket(final long v) {
+        final int msb = 63 - Long.numberOfLeadingZeros(v | 1);
+        
+        if(msb < SUBBITS) {
+            return (int) v;
+        }
+        final int shift = msb - SUBBITS;
+        return (shift + 1) * SUBBUCKETS + (int) (v >>> shift) - SUBBUCKETS;
+    }
+    
+    /**
+     * Get the middle value of a bucket.
+     * @param i The index of the bucket.
+     * @return The value.
+     */
+    private static long value(final int i) {
+        if(i < SUBBUCKETS) {
+            return i;
+        }
+        final int shift = i / SUBBUCKETS - 1;
+        final long lower = (long) (SUBBUCKETS + i % SUBBUCKETS) << shift;
+        return lower + ((1L << shift) >>> 1);
+    }
+}
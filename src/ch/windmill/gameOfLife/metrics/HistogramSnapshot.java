@@ -0,0 +1,88 @@
+package ch.windmill.gameOfLife.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * This class provides an immutable summary of a <code>Histogram</code>. It is an open type of JMX, a JMX client
+ * sees it as composite data with the items count, mean, p50, p90, p99 and max.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public final class HistogramSnapshot {
+    private final long count, p50, p90, p99, max;
+    private final double mean;
+    
+    /**
+     * Creates a new snapshot.
+     * @param count The number of recorded values.
+     * @param mean The mean of the values.
+     * @param p50 The median.
+     * @param p90 The 90th percentile.
+     * @param p99 The 99th percentile.
+     * @param max The largest value.
+     */
+    @ConstructorProperties({"count", "mean", "p50", "p90", "p99", "max"})
+    public HistogramSnapshot(final long count, final double mean, final long p50, final long p90, final long p99,
+            final long max) {
+        this.count = count;
+        this.mean = mean;
+        this.p50 = p50;
+        this.p90 = p90;
+        this.p99 = p99;
+        this.max = max;
+    }
+    
+    /**
+     * The number of recorded values.
+     * @return The count.
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * The mean of the recorded values.
+     * @return The mean.
+     */
+    public double getMean() {
+        return mean;
+    }
+    
+    /**
+     * The median of the recorded values.
+     * @return The 50th percentile.
+     */
+    public long getP50() {
+        return p50;
+    }
+    
+    /**
+     * The 90th percentile of the recorded values.
+     * @return The 90th percentile.
+     */
+    public long getP90() {
+        return p90;
+    }
+    
+    /**
+     * The 99th percentile of the recorded values.
+     * @return The 99th percentile.
+     */
+    public long getP99() {
+        return p99;
+    }
+    
+    /**
+     * The largest recorded value.
+     * @return The max.
+     */
+    public long getMax() {
+        return max;
+    }
+    
+    @Override
+    public String toString() {
+        return "count="+count+" mean="+String.format("%.1f", mean)+" p50="+p50+" p90="+p90+" p99="+p99+" max="
+                +max;
+    }
+}
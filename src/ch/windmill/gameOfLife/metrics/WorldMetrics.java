@@ -0,0 +1,245 @@
+package ch.windmill.gameOfLife.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * This class provides the metrics of a world. The world records the evolve time, the allocated bytes, the
+ * active cells and the interval of every generation and the copy time of every snapshot, a renderer records the
+ * time of every frame. Each value is recorded into a lock-free <code>Histogram</code>, so the metrics are cheap
+ * enough to be always enabled.
+ * <br>
+ * The allocated bytes are measured with the allocation counter of the evolving thread, if the virtual machine
+ * provides it. The threads of a fork/join pool are not measured. Without the counter, no bytes are recorded.
+ * <br>
+ * The metrics can be registered as an MXBean, so they can be read by a JMX client like jconsole.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class WorldMetrics implements WorldMetricsMXBean {
+    public final static String DOMAIN = "ch.windmill.gameOfLife";
+    
+    private final static com.sun.management.ThreadMXBean THREADS = allocationCounter();
+    
+    private final Histogram evolveTime, copyTime, renderTime, interval, allocated, active;
+    private final LongAdder generations;
+    private volatile long population, lastGeneration;
+    private ObjectName name;
+    
+    /**
+     * Creates new empty metrics.
+     */
+    public WorldMetrics() {
+        evolveTime = new Histogram();
+        copyTime = new Histogram();
+        renderTime = new Histogram();
+        interval = new Histogram();
+        allocated = new Histogram();
+        active = new Histogram();
+        generations = new LongAdder();
+    }
+    
+    /**
+     * Get the bytes that the current thread has allocated since it was started.
+     * @return The allocated bytes or -1 if the virtual machine doesnt count them.
+     */
+    public static long getThreadAllocatedBytes() {
+        return THREADS != null ? THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+    
+    /**
+     * Record a generation. This method is invoked by the world after each generation.
+     * @param evolveNanos The time to evolve the generation.
+     * @param allocatedBytes The bytes allocated by the evolving thread or a negative value if they are unknown.
+     * @param population The number of alive cells.
+     * @param activeCells The number of cells in the evolved tiles.
+     */
+    public void recordGeneration(final long evolveNanos, final long allocatedBytes, final long population,
+            final long activeCells) {
+        final long now = System.nanoTime();
+        final long last = lastGeneration;
+        
+        evolveTime.record(evolveNanos);
+        if(allocatedBytes >= 0) {
+            allocated.record(allocatedBytes);
+        }
+        if(last != 0) {
+            interval.record(now - last);
+        }
+        lastGeneration = now;
+        active.record(activeCells);
+        this.population = population;
+        generations.increment();
+    }
+    
+    /**
+     * Record the time to copy a generation into a snapshot.
+     * @param nanos The copy time.
+     */
+    public void recordCopy(final long nanos) {
+        copyTime.record(nanos);
+    }
+    
+    /**
+     * Record the time to render a frame.
+     * @param nanos The render time.
+     */
+    public void recordRender(final long nanos) {
+        renderTime.record(nanos);
+    }
+    
+    /**
+     * Get the histogram of the evolve times.
+     * @return The histogram.
+     */
+    public Histogram getEvolveHistogram() {
+        return evolveTime;
+    }
+    
+    /**
+     * Get the histogram of the copy times.
+     * @return The histogram.
+     */
+    public Histogram getCopyHistogram() {
+        return copyTime;
+    }
+    
+    /**
+     * Get the histogram of the render times.
+     * @return The histogram.
+     */
+    public Histogram getRenderHistogram() {
+        return renderTime;
+    }
+    
+    /**
+     * Get the histogram of the generation intervals.
+     * @return The histogram.
+     */
+    public Histogram getIntervalHistogram() {
+        return interval;
+    }
+    
+    /**
+     * Get the histogram of the allocated bytes.
+     * @return The histogram.
+     */
+    public Histogram getAllocationHistogram() {
+        return allocated;
+    }
+    
+    /**
+     * Get the histogram of the active cells.
+     * @return The histogram.
+     */
+    public Histogram getActiveCellHistogram() {
+        return active;
+    }
+    
+    @Override
+    public long getGenerations() {
+        return generations.sum();
+    }
+    
+    @Override
+    public HistogramSnapshot getEvolveTime() {
+        return evolveTime.getSnapshot();
+    }
+    
+    @Override
+    public HistogramSnapshot getCopyTime() {
+        return copyTime.getSnapshot();
+    }
+    
+    @Override
+    public HistogramSnapshot getRenderTime() {
+        return renderTime.getSnapshot();
+    }
+    
+    @Override
+    public HistogramSnapshot getGenerationInterval() {
+        return interval.getSnapshot();
+    }
+    
+    @Override
+    public HistogramSnapshot getAllocatedBytes() {
+        return allocated.getSnapshot();
+    }
+    
+    @Override
+    public double getGenerationRate() {
+        final long median = interval.getValueAtPercentile(50);
+        
+        return median == 0 ? 0 : 1e9 / median;
+    }
+    
+    @Override
+    public long getPopulation() {
+        return population;
+    }
+    
+    @Override
+    public HistogramSnapshot getActiveCells() {
+        return active.getSnapshot();
+    }
+    
+    @Override
+    public void reset() {
+        evolveTime.reset();
+        copyTime.reset();
+        renderTime.reset();
+        interval.reset();
+        allocated.reset();
+        active.reset();
+        generations.reset();
+        lastGeneration = 0;
+    }
+    
+    /**
+     * Register the metrics at the platform MBean server. The object name is
+     * "ch.windmill.gameOfLife:type=World,name=" and the given name. Registered metrics are unregistered first.
+     * @param world The name of the world.
+     * @return The object name.
+     * @throws JMException The metrics could not be registered, e.g. the name is already registered.
+     */
+    public synchronized ObjectName register(final String world) throws JMException {
+        final ObjectName n = new ObjectName(DOMAIN+":type=World,name="+ObjectName.quote(world));
+        
+        unregister();
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, n);
+        name = n;
+        return n;
+    }
+    
+    /**
+     * Unregister the metrics from the platform MBean server. Nothing happens if they are not registered.
+     * @throws JMException The metrics could not be unregistered.
+     */
+    public synchronized void unregister() throws JMException {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        
+        if(name != null && server.isRegistered(name)) {
+            server.unregisterMBean(name);
+        }
+        name = null;
+    }
+    
+    /**
+     * Get the allocation counter of the threads, if the virtual machine provides it.
+     * @return The thread bean with the allocation counter or null.
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        final ThreadMXBean t = ManagementFactory.getThreadMXBean();
+        
+        if(t instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) t).isThreadAllocatedMemorySupported()) {
+            ((com.sun.management.ThreadMXBean) t).setThreadAllocatedMemoryEnabled(true);
+            return (com.sun.management.ThreadMXBean) t;
+        }
+        return null;
+    }
+}
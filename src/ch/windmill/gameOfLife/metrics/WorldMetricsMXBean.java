@@ -0,0 +1,68 @@
+package ch.windmill.gameOfLife.metrics;
+
+/**
+ * This interface provides the management interface of the metrics of a world. The durations are in nanoseconds.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public interface WorldMetricsMXBean {
+    
+    /**
+     * The number of generations that were evolved.
+     * @return The number of generations.
+     */
+    long getGenerations();
+    
+    /**
+     * The time to evolve a generation, without the time to publish its snapshot.
+     * @return The histogram of the evolve times.
+     */
+    HistogramSnapshot getEvolveTime();
+    
+    /**
+     * The time to copy a generation into a snapshot.
+     * @return The histogram of the copy times.
+     */
+    HistogramSnapshot getCopyTime();
+    
+    /**
+     * The time to render a frame or a region of a frame.
+     * @return The histogram of the render times.
+     */
+    HistogramSnapshot getRenderTime();
+    
+    /**
+     * The time between the ends of two generations.
+     * @return The histogram of the generation intervals.
+     */
+    HistogramSnapshot getGenerationInterval();
+    
+    /**
+     * The bytes that the evolving thread allocated during a generation.
+     * @return The histogram of the allocated bytes.
+     */
+    HistogramSnapshot getAllocatedBytes();
+    
+    /**
+     * The median generation rate, calculated from the median generation interval.
+     * @return The number of generations per second.
+     */
+    double getGenerationRate();
+    
+    /**
+     * The number of alive cells after the last generation.
+     * @return The population.
+     */
+    long getPopulation();
+    
+    /**
+     * The number of cells in the tiles that were evolved in a generation.
+     * @return The histogram of the active cells.
+     */
+    HistogramSnapshot getActiveCells();
+    
+    /**
+     * Remove every recorded value.
+     */
+    void reset();
+}
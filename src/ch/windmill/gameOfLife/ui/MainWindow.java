@@ -1,33 +1,66 @@
 package ch.windmill.gameOfLife.ui;
 
+import ch.windmill.gameOfLife.BitwiseLifeEngine;
+import ch.windmill.gameOfLife.GenerationHistory;
+import ch.windmill.gameOfLife.GenerationSnapshot;
+import ch.windmill.gameOfLife.Rule;
 import ch.windmill.gameOfLife.RuleSet;
 import ch.windmill.gameOfLife.World;
+import ch.windmill.gameOfLife.WorldRenderer;
+import ch.windmill.gameOfLife.io.PlaintextFormat;
+import ch.windmill.gameOfLife.io.RleFormat;
+import ch.windmill.gameOfLife.metrics.Histogram;
+import ch.windmill.gameOfLife.metrics.WorldMetrics;
 import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.FlowLayout;
 import java.awt.Graphics;
 import java.awt.GridLayout;
+import java.awt.Rectangle;
 import java.awt.event.ActionEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import javax.management.JMException;
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
+import javax.swing.JCheckBox;
 import javax.swing.JComboBox;
+import javax.swing.JFileChooser;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
+import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JSlider;
 import javax.swing.JSpinner;
 import javax.swing.SpinnerModel;
 import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import javax.swing.filechooser.FileNameExtensionFilter;
 
 /**
  * This class provides the main window of the ui. It has a main method that will invoke the constructor of this
  * class. 
+ * <br>
+ * The generations are evolved by a <code>SimulationScheduler</code> on a worker thread. A swing timer renders the
+ * latest generation on the event dispatch thread at the frame rate, generations that were evolved between two
+ * frames are never drawn.
+ * <br>
+ * The event dispatch thread never reads or writes the world directly. It draws the immutable snapshots of the
+ * world, the edits and other changes are passed to the scheduler, which applies them between two generations.
  * @author Cyrill Jauner
  * @version 1.0.0
  */
@@ -38,13 +71,21 @@ public class MainWindow {
     private final static int BTNWIDTH = 150;
     private final static int BTNHEIGHT = 60;
     private final static int CELLSIZE = 2;
+    private final static int FRAMEPERIOD = 16;
+    private final static long HISTORYBUDGET = 64L << 20;
+    private final static int MAXPERIOD = 64;
+    private final static int METRICSFRAMES = 30;
     
     private final JFrame frame;
     private final World world;
     private int delay;
     private Canvas canvas;
     private ControlPanel controlPanel;
-    private Thread evolveThread;
+    private final SimulationScheduler scheduler;
+    private final Timer frameTimer;
+    private final RateMeter frameRate;
+    private GenerationSnapshot snapshot;
+    private int metricsFrame;
     
     /**
      * Start the game of life application.
@@ -60,12 +101,25 @@ public class MainWindow {
      */
     public MainWindow() {
         frame = new JFrame("Game of life");
-        world = new World(WIDTH, HEIGHT, CELLSIZE);
+        world = new World(WIDTH, HEIGHT, CELLSIZE, new BitwiseLifeEngine());
+        world.setDirtyTracking(true);
+        world.setHistory(HISTORYBUDGET);
+        world.setCycleDetection(MAXPERIOD);
         delay = 100;
-        evolveThread = getEvolveThread();
+        scheduler = new SimulationScheduler(world, delay);
+        frameRate = new RateMeter();
+        frameTimer = new Timer(FRAMEPERIOD, (ActionEvent e) -> drawFrame());
+        frameTimer.setCoalesce(true);
+        snapshot = world.getSnapshot();
+        try {
+            world.getMetrics().register("main");
+        } catch(JMException ex) {
+            showError("Cannot register the metrics", ex);
+        }
         
         initUI();
         frame.setVisible(true);
+        frameTimer.start();
     }
     
     /**
@@ -74,6 +128,7 @@ public class MainWindow {
      */
     public void setDelay(final int delay) {
         this.delay = delay;
+        scheduler.setDelay(delay);
     }
     
     /**
@@ -89,8 +144,69 @@ public class MainWindow {
      * @param cellSize The new size of cells in pixels.
      */
     public void resizeWorld(final int cellSize) {
-        world.resize(HEIGHT, WIDTH, cellSize);
-        canvas.repaint();
+        scheduler.invoke(() -> world.resize(HEIGHT, WIDTH, cellSize));
+    }
+    
+    /**
+     * Load a pattern into the world. The current generation is killed and the pattern is placed at the cell
+     * (0, 0). The rule of an RLE pattern replaces the rule of the world.
+     * @param file The pattern file, the format is chosen by the extension .rle or .cells.
+     */
+    public void loadPattern(final File file) {
+        scheduler.invoke(() -> {
+            try(Reader in = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8)) {
+                world.killGeneration();
+                if(isRle(file)) {
+                    final Rule rule = RleFormat.read(in, world, 0, 0);
+                    if(rule != null) {
+                        world.setEngineRule(rule);
+                        SwingUtilities.invokeLater(() -> controlPanel.selectRule(rule));
+                    }
+                } else {
+                    PlaintextFormat.read(in, world, 0, 0);
+                }
+                world.invalidate();
+            } catch(IOException ex) {
+                showError("Cannot load the pattern "+file.getName(), ex);
+            }
+        });
+    }
+    
+    /**
+     * Save the current generation of the world as a pattern.
+     * @param file The pattern file, the format is chosen by the extension .rle or .cells.
+     */
+    public void savePattern(final File file) {
+        scheduler.invoke(() -> {
+            try(Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+                if(isRle(file)) {
+                    RleFormat.write(world, out, file.getName());
+                } else {
+                    PlaintextFormat.write(world, out, file.getName());
+                }
+            } catch(IOException ex) {
+                showError("Cannot save the pattern "+file.getName(), ex);
+            }
+        });
+    }
+    
+    /**
+     * Check if a file has the extension of the RLE format.
+     * @param file The file.
+     * @return True if the extension is .rle.
+     */
+    private static boolean isRle(final File file) {
+        return file.getName().toLowerCase().endsWith(".rle");
+    }
+    
+    /**
+     * Show an error message on the event dispatch thread.
+     * @param message The message.
+     * @param ex The exception of the error.
+     */
+    private void showError(final String message, final Exception ex) {
+        SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(frame, message+": "+ex.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE));
     }
     
     /**
@@ -101,7 +217,8 @@ public class MainWindow {
         controlPanel = new ControlPanel();
         
         canvas.setPreferredSize(new Dimension(WIDTH, HEIGHT));
-        controlPanel.setNumCellText(world.getNumberOfCells());
+        controlPanel.setNumCellText(snapshot.getXAxis() * snapshot.getYAxis());
+        controlPanel.drawHistory(world.getHistory(), snapshot.getGeneration());
         controlPanel.setPreferredSize(new Dimension(CONTROLPWIDTH, HEIGHT));
         
         frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -113,67 +230,106 @@ public class MainWindow {
     }
     
     /**
-     * Initialize a new evolving thread. This thread generates a new generation with the life engine. The thread
-     * will stop after the number of <code>WAITTIME</code> milliseconds.
-     * @return The evolve thread.
+     * Draw a frame. This method is invoked by the frame timer on the event dispatch thread. If the world has
+     * published a new snapshot since the last frame, the labels are updated and the dirty regions of the snapshot
+     * are repainted. The rates are updated with every frame, the metrics every 30 frames.
      */
-    private Thread getEvolveThread() {
-        return evolveThread = new Thread(() -> {
-            while(evolveThread == Thread.currentThread()) {
-                try {
-                    Thread.sleep(delay);
-                    world.startEngine();
-                    controlPanel.incCounter();
-                    controlPanel.drawAliveCellText(world.countAliveCells());
-                    canvas.repaint();
-                } catch (InterruptedException ex) { }
-            }
-        });
+    private void drawFrame() {
+        final GenerationSnapshot s = world.getSnapshot();
+        
+        if(s != snapshot) {
+            snapshot = s;
+            controlPanel.drawGenerationText(s.getGeneration());
+            controlPanel.drawStableText(s.getStableGeneration(), s.getPeriod());
+            controlPanel.drawAliveCellText(s.getPopulation());
+            controlPanel.drawChangesText(s.getBirths(), s.getDeaths());
+            controlPanel.setNumCellText(s.getXAxis() * s.getYAxis());
+            canvas.repaintDirty();
+            controlPanel.drawHistory(world.getHistory(), s.getGeneration());
+        }
+        controlPanel.drawRateText(scheduler.getGenerationRate(), frameRate.getRate());
+        if(++metricsFrame >= METRICSFRAMES) {
+            metricsFrame = 0;
+            controlPanel.drawMetricsText(world.getMetrics());
+        }
     }
     
     /**
      * Provides a canvas panel to draw the cells onto. It has listeners for click and drag events.
      */
     private class Canvas extends JPanel implements MouseListener, MouseMotionListener{
+        private final WorldRenderer renderer;
         
         /**
          * Create a new canvas object.
          */
         public Canvas() {
             super();
+            renderer = new WorldRenderer(world, getBackground());
             addMouseListener(this);
             addMouseMotionListener(this);
         }
         
         /**
-         * Draw the whole world of cells onto the panel.
+         * Repaint the dirty regions of the current snapshot. The repaint manager merges the regions into one
+         * clip.
+         */
+        public void repaintDirty() {
+            final int cs = snapshot.getCellSize();
+            
+            for(Rectangle r : snapshot.getDirtyRegions()) {
+                repaint(r.x * cs, r.y * cs, r.width * cs, r.height * cs);
+            }
+        }
+        
+        /**
+         * Render the cells of the current snapshot inside of the clip into the offscreen image and draw the image
+         * onto the panel. The graphics context only draws the pixels inside of the clip.
          * @param g The graphics context.
          */
         @Override
         protected void paintComponent(Graphics g) {
+            final GenerationSnapshot s = snapshot;
+            final Rectangle clip = g.getClipBounds();
+            final int cs = s.getCellSize();
+            
             super.paintComponent(g);
-            world.drawWorld(g);
+            frameRate.tick();
+            if(clip == null) {
+                renderer.render(s);
+            } else {
+                renderer.render(s, clip.x / cs, clip.y / cs, (clip.x + clip.width + cs - 1) / cs,
+                        (clip.y + clip.height + cs - 1) / cs);
+            }
+            g.drawImage(renderer.getImage(), 0, 0, null);
         }
         
         /**
-         * Calculate which cell was clicked and set that cell alive.
+         * Calculate which cell was clicked and queue an edit to set that cell alive. The tile of the cell is
+         * repainted with the next snapshot.
          * @param e Object reference with mouse informations.
          */
         @Override
         public void mouseClicked(MouseEvent e) {
-            world.getCell((e.getX() / world.getCellSize()), (e.getY() / world.getCellSize())).setAlive(true);
-            repaint();
+            final GenerationSnapshot s = snapshot;
+            final int cs = s.getCellSize();
+            final int x = e.getX() / cs;
+            final int y = e.getY() / cs;
+            
+            if(e.getX() >= 0 && e.getY() >= 0 && x < s.getXAxis() && y < s.getYAxis()) {
+                scheduler.edit(x, y, true);
+            }
         }
-
+        
         @Override
         public void mousePressed(MouseEvent e) { }
-
+        
         @Override
         public void mouseReleased(MouseEvent e) { }
-
+        
         @Override
         public void mouseEntered(MouseEvent e) { }
-
+        
         @Override
         public void mouseExited(MouseEvent e) { }
         
@@ -185,7 +341,7 @@ public class MainWindow {
         public void mouseDragged(MouseEvent e) {
             mouseClicked(e);
         }
-
+        
         @Override
         public void mouseMoved(MouseEvent e) { }
     }
@@ -194,31 +350,26 @@ public class MainWindow {
      * Provides a panel with components to control the game.
      */
     private class ControlPanel extends JPanel {
-        private JPanel pInfo;
-        private JLabel lblProcessState, lblGeneration, lblAliveCells, lblNumCells, lblPercentage, lblCellSize,
-                lblDelay;
-        private JButton btnStart, btnStop, btnKill, btnRandom;
+        private JPanel pInfo, pMetrics;
+        private JLabel lblProcessState, lblGeneration, lblStable, lblAliveCells, lblChanges, lblNumCells, lblPercentage,
+                lblCellSize, lblDelay, lblSimRate, lblFrameRate, lblEvolveTime, lblCopyTime, lblRenderTime,
+                lblAllocated;
+        private JButton btnStart, btnStop, btnKill, btnRandom, btnOpen, btnSave;
+        private JCheckBox cbUnthrottled;
         private JComboBox boxRules;
         private JSpinner spPercentageAlive;
-        private JSlider slCellSize, slDelay;
-        private int generationCounter;
+        private JSlider slCellSize, slDelay, slHistory;
+        private JLabel lblHistory;
+        private boolean updatingHistory;
+        private long historyOldest;
         
         /**
          * Create a new control panel.
          */
         public ControlPanel() {
-            generationCounter = 0;
             initUI();
         }
         
-        /**
-         * Increment the generation counter. Update the text of the label and repaint it.
-         */
-        public void incCounter() {
-            generationCounter++;
-            drawGenerationText();
-        }
-        
         /**
          * Set the text of the num cell label.
          * @param n Number of cells.
@@ -236,6 +387,27 @@ public class MainWindow {
             lblAliveCells.repaint();
         }
         
+        /**
+         * Select the ruleset of a rule in the rule box. Nothing happens if no ruleset has this rule.
+         * @param rule The rule.
+         */
+        public void selectRule(final Rule rule) {
+            final RuleSet rules = rule.toRuleSet();
+            if(rules != null) {
+                boxRules.setSelectedItem(rules);
+            }
+        }
+        
+        /**
+         * Set the text of the births and deaths label. Invoke the repaint method to redraw it.
+         * @param births Number of cells that were born in the last generation.
+         * @param deaths Number of cells that died in the last generation.
+         */
+        public void drawChangesText(final int births, final int deaths) {
+            lblChanges.setText("Births / deaths: "+births+" / "+deaths);
+            lblChanges.repaint();
+        }
+        
         /**
          * Initialize all ui components.
          */
@@ -243,34 +415,55 @@ public class MainWindow {
             pInfo = new JPanel();
             lblProcessState = new JLabel();
             lblAliveCells = new JLabel();
+            lblChanges = new JLabel();
             lblNumCells = new JLabel();
             lblGeneration = new JLabel();
+            lblStable = new JLabel(" ");
             lblDelay = new JLabel();
+            lblSimRate = new JLabel();
+            lblFrameRate = new JLabel();
+            pMetrics = new JPanel();
+            lblEvolveTime = new JLabel();
+            lblCopyTime = new JLabel();
+            lblRenderTime = new JLabel();
+            lblAllocated = new JLabel();
+            cbUnthrottled = new JCheckBox("Unthrottled");
             lblPercentage = new JLabel(" live quote: ");
             lblCellSize  = new JLabel("Cell size (pixels): ");
             btnStart = new JButton("Start");
             btnStop = new JButton("Stop");
             btnKill = new JButton("Kill");
             btnRandom = new JButton("Random generation");
+            btnOpen = new JButton("Open pattern");
+            btnSave = new JButton("Save pattern");
             boxRules = new JComboBox(RuleSet.values());
             spPercentageAlive = new JSpinner();
             slCellSize = new JSlider(JSlider.HORIZONTAL);
             slDelay = new JSlider(JSlider.HORIZONTAL);
+            slHistory = new JSlider(JSlider.HORIZONTAL, 0, 0, 0);
+            lblHistory = new JLabel();
             
             // set the text of the labels
             drawProcessStateText(ProcessState.STOPPED);
-            drawGenerationText();
+            drawGenerationText(0);
             drawAliveCellText(0);
+            drawChangesText(0, 0);
+            drawRateText(0, 0);
+            drawMetricsText(world.getMetrics());
             
             // buttons
             btnStart.setPreferredSize(new Dimension(BTNWIDTH/2-2, BTNHEIGHT));
             btnStop.setPreferredSize(new Dimension(BTNWIDTH/2-2, BTNHEIGHT));
-            btnRandom.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT));
-            btnKill.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT));
+            btnRandom.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT/2));
+            btnKill.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT/2));
             addStartAction(btnStart, btnKill);
             addStopAction(btnStop, btnKill, btnStart);
             addKillAction(btnKill);
             addRandomAction(btnRandom);
+            btnOpen.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT/2));
+            btnSave.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT/2));
+            addOpenAction(btnOpen);
+            addSaveAction(btnSave);
             
             // spinner
             SpinnerModel model = new SpinnerNumberModel(0.2, 0.1, 1.0, 0.1);
@@ -293,9 +486,18 @@ public class MainWindow {
             slDelay.setSnapToTicks(true);
             slDelay.addChangeListener(new SliderDelayListener());
             drawDelayText(slDelay.getValue());
+            slHistory.addChangeListener(new SliderHistoryListener());
+            cbUnthrottled.addActionListener((ActionEvent e) -> {
+                scheduler.setUnthrottled(cbUnthrottled.isSelected());
+                slDelay.setEnabled(!cbUnthrottled.isSelected());
+            });
             
             // combobox
             boxRules.setPreferredSize(new Dimension(BTNWIDTH, BTNHEIGHT/2));
+            boxRules.addActionListener((ActionEvent e) -> {
+                final RuleSet rules = (RuleSet) boxRules.getSelectedItem();
+                scheduler.invoke(() -> world.setEngineRules(rules));
+            });
             
             // configure panels
             pInfo.setLayout(new GridLayout(0, 1));
@@ -303,7 +505,17 @@ public class MainWindow {
             pInfo.add(lblProcessState);
             pInfo.add(lblNumCells);
             pInfo.add(lblAliveCells);
+            pInfo.add(lblChanges);
             pInfo.add(lblGeneration);
+            pInfo.add(lblStable);
+            pInfo.add(lblSimRate);
+            pInfo.add(lblFrameRate);
+            pMetrics.setLayout(new GridLayout(0, 1));
+            pMetrics.setBorder(BorderFactory.createTitledBorder("Metrics p50 / p99"));
+            pMetrics.add(lblEvolveTime);
+            pMetrics.add(lblCopyTime);
+            pMetrics.add(lblRenderTime);
+            pMetrics.add(lblAllocated);
             
             // configure the main panel
             setLayout(new FlowLayout(FlowLayout.CENTER));
@@ -311,6 +523,7 @@ public class MainWindow {
             add(pInfo);
             add(lblDelay);
             add(slDelay);
+            add(cbUnthrottled);
             add(lblCellSize);
             add(slCellSize);
             add(boxRules);
@@ -320,17 +533,93 @@ public class MainWindow {
             add(lblPercentage);
             add(spPercentageAlive);
             add(btnRandom);
-
+            add(btnOpen);
+            add(btnSave);
+            add(lblHistory);
+            add(slHistory);
+            add(pMetrics);
+            
         }
         
         /**
          * Set the text of the generation label. Invoke the repaint method of the jlabel.
+         * @param generation The generation of the world.
          */
-        private void drawGenerationText() {
-            lblGeneration.setText("Generation: "+generationCounter);
+        private void drawGenerationText(final long generation) {
+            lblGeneration.setText("Generation: "+generation);
             lblGeneration.repaint();
         }
         
+        /**
+         * Set the range of the history slider to the recorded generations and its value to the current generation.
+         * The values of the slider are offsets from the oldest generation, so the generation counter can exceed the
+         * range of an int. The change events of the slider are ignored while it is updated.
+         * @param history The history of the world.
+         * @param generation The current generation.
+         */
+        private void drawHistory(final GenerationHistory history, final long generation) {
+            final long oldest = history.getOldestGeneration();
+            final long newest = history.getNewestGeneration();
+            
+            updatingHistory = true;
+            historyOldest = oldest;
+            slHistory.setMinimum(0);
+            slHistory.setMaximum((int) Math.min(Integer.MAX_VALUE, newest - oldest));
+            slHistory.setValue((int) Math.max(0, Math.min(newest - oldest, generation - oldest)));
+            updatingHistory = false;
+            lblHistory.setText("History: "+oldest+" - "+newest);
+            lblHistory.repaint();
+        }
+        
+        /**
+         * Set the text of the stable label. The label is empty if no period was detected. Invoke the repaint
+         * method of the jlabel.
+         * @param generation The first generation of the cycle.
+         * @param period The period or 0 if no period was detected.
+         */
+        private void drawStableText(final long generation, final long period) {
+            lblStable.setText(period > 0 ? "Stable at "+generation+", period "+period : " ");
+            lblStable.repaint();
+        }
+        
+        /**
+         * Set the text of the rate labels. Invoke the repaint method of the jlabels.
+         * @param generationRate The number of generations per second of the simulation.
+         * @param frameRate The number of frames per second of the canvas.
+         */
+        private void drawRateText(final double generationRate, final double frameRate) {
+            lblSimRate.setText(String.format("Simulation: %.1f gen/s", generationRate));
+            lblFrameRate.setText(String.format("Render: %.1f fps", frameRate));
+            lblSimRate.repaint();
+            lblFrameRate.repaint();
+        }
+        
+        /**
+         * Set the text of the metrics labels. The times are shown in microseconds. Invoke the repaint method of the
+         * panel.
+         * @param metrics The metrics of the world.
+         */
+        private void drawMetricsText(final WorldMetrics metrics) {
+            lblEvolveTime.setText(percentiles("Evolve", metrics.getEvolveHistogram(), 1e3, "us"));
+            lblCopyTime.setText(percentiles("Copy", metrics.getCopyHistogram(), 1e3, "us"));
+            lblRenderTime.setText(percentiles("Render", metrics.getRenderHistogram(), 1e3, "us"));
+            lblAllocated.setText(percentiles("Alloc", metrics.getAllocationHistogram(), 1 << 10, "KB"));
+            pMetrics.repaint();
+        }
+        
+        /**
+         * Format the median and the 99th percentile of a histogram.
+         * @param name The name of the values.
+         * @param h The histogram.
+         * @param unit The divisor of the unit.
+         * @param suffix The suffix of the unit.
+         * @return The text.
+         */
+        private String percentiles(final String name, final Histogram h, final double unit, final String suffix) {
+            return String.format("%s: %.1f / %.1f %s", name, h.getValueAtPercentile(50) / unit,
+                    h.getValueAtPercentile(99) / unit, suffix);
+        }
+        
         /**
          * Set the text of the process state label. Invoke the repaint method of the jlabel.
          * @param state The current state of the evolve thread.
@@ -356,12 +645,9 @@ public class MainWindow {
          */
         private void addStartAction(final JButton b, final JButton bDisable) {
             b.addActionListener((ActionEvent e) -> {
-                if(evolveThread == null) {
-                    evolveThread = getEvolveThread();
-                }
-                world.setEngineRules((RuleSet) boxRules.getSelectedItem());
-                evolveThread.start();
+                scheduler.start();
                 drawProcessStateText(ProcessState.RUNNING);
+                slHistory.setEnabled(false);
                 bDisable.setEnabled(false);
                 b.setEnabled(false);
             });
@@ -375,10 +661,11 @@ public class MainWindow {
          */
         private void addStopAction(final JButton b, final JButton bEnable, final JButton bEnable2) {
             b.addActionListener((ActionEvent e) -> {
-                evolveThread = null;
+                scheduler.stop();
                 drawProcessStateText(ProcessState.STOPPED);
                 bEnable.setEnabled(true);
                 bEnable2.setEnabled(true);
+                slHistory.setEnabled(true);
             });
         }
         
@@ -387,13 +674,7 @@ public class MainWindow {
          * @param b The button to add the actionlistener.
          */
         private void addKillAction(final JButton b) {
-            b.addActionListener((ActionEvent e) -> {
-                world.killGeneration();
-                generationCounter = 0;
-                drawGenerationText();
-                drawAliveCellText(0);
-                canvas.repaint();
-            });
+            b.addActionListener((ActionEvent e) -> scheduler.invoke(world::killGeneration));
         }
         
         /**
@@ -403,29 +684,75 @@ public class MainWindow {
          */
         private void addRandomAction(final JButton b) {
             b.addActionListener((ActionEvent e) -> {
-                world.killGeneration();
-                world.randomGeneration(Double.parseDouble(spPercentageAlive.getValue().toString()));
-                drawAliveCellText(world.countAliveCells());
-                generationCounter = 0;
-                drawGenerationText();
-                canvas.repaint();
+                final double percentAlive = Double.parseDouble(spPercentageAlive.getValue().toString());
+                scheduler.invoke(() -> {
+                    world.killGeneration();
+                    world.randomGeneration(percentAlive);
+                });
             });
         }
+        
+        /**
+         * Add an actionlistener to load a pattern file.
+         * @param b The button to add the actionlistener.
+         */
+        private void addOpenAction(final JButton b) {
+            b.addActionListener((ActionEvent e) -> {
+                final JFileChooser chooser = createChooser();
+                if(chooser.showOpenDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    loadPattern(chooser.getSelectedFile());
+                }
+            });
+        }
+        
+        /**
+         * Add an actionlistener to save the current generation into a pattern file.
+         * @param b The button to add the actionlistener.
+         */
+        private void addSaveAction(final JButton b) {
+            b.addActionListener((ActionEvent e) -> {
+                final JFileChooser chooser = createChooser();
+                if(chooser.showSaveDialog(frame) == JFileChooser.APPROVE_OPTION) {
+                    savePattern(chooser.getSelectedFile());
+                }
+            });
+        }
+        
+        /**
+         * Create a file chooser for pattern files.
+         * @return The file chooser.
+         */
+        private JFileChooser createChooser() {
+            final JFileChooser chooser = new JFileChooser();
+            chooser.setFileFilter(new FileNameExtensionFilter("Patterns (*.rle, *.cells)", "rle", "cells"));
+            return chooser;
+        }
     }
     
     private class SliderListener implements ChangeListener {
-
+        
         @Override
         public void stateChanged(ChangeEvent e) {
             JSlider s = (JSlider) e.getSource();
             if(!s.getValueIsAdjusting()) {          // user doesnt move the cursor
                 resizeWorld(s.getValue());
-                controlPanel.setNumCellText(world.getNumberOfCells());
             }
         }
         
     }
     
+    private class SliderHistoryListener implements ChangeListener {
+        
+        @Override
+        public void stateChanged(ChangeEvent e) {
+            JSlider s = (JSlider) e.getSource();
+            if(!controlPanel.updatingHistory && !scheduler.isRunning()) {     // scrub while the cursor moves
+                final long generation = controlPanel.historyOldest + s.getValue();
+                scheduler.invoke(() -> world.seekHistory(generation));
+            }
+        }
+    }
+    
     private class SliderDelayListener implements ChangeListener {
         
         @Override
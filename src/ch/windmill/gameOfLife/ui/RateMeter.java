@@ -0,0 +1,61 @@
+package ch.windmill.gameOfLife.ui;
+
+/**
+ * This class provides a meter of events per second. The events are counted in windows of half a second, the rate
+ * of the last complete window is reported. If the current window is older than half a second, because the events
+ * stopped or slowed down, the rate of the current window is reported instead. After two windows without a complete
+ * window the rate is 0. A meter is ticked by one thread and read by any thread.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+class RateMeter {
+    private final static long WINDOW = 500_000_000L;
+    
+    private volatile long windowStart, count;
+    private volatile double rate;
+    
+    /**
+     * Creates a new rate meter with the rate 0.
+     */
+    RateMeter() {
+        windowStart = System.nanoTime();
+    }
+    
+    /**
+     * Count an event. If the window is complete, the rate is updated.
+     */
+    void tick() {
+        final long now = System.nanoTime();
+        
+        count++;
+        if(now - windowStart >= WINDOW) {
+            rate = count * 1e9 / (now - windowStart);
+            windowStart = now;
+            count = 0;
+        }
+    }
+    
+    /**
+     * Reset the rate to 0 and start a new window.
+     */
+    void reset() {
+        windowStart = System.nanoTime();
+        count = 0;
+        rate = 0;
+    }
+    
+    /**
+     * Get the rate of the last complete window, or the rate of the current window if it is older than a window.
+     * @return The number of events per second, 0 if the current window is older than two windows.
+     */
+    double getRate() {
+        final long elapsed = System.nanoTime() - windowStart;
+        
+        if(elapsed > 2 * WINDOW) {
+            return 0;
+        } else if(elapsed > WINDOW) {
+            return count * 1e9 / elapsed;
+        }
+        return rate;
+    }
+}
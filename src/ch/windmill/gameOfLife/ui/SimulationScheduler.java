@@ -0,0 +1,190 @@
+package ch.windmill.gameOfLife.ui;
+
+import ch.windmill.gameOfLife.World;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class provides the scheduler of the simulation. The generations are evolved on a worker thread at a target
+ * rate or as fast as possible. The scheduler doesn't draw anything, the user interface renders the latest
+ * generation at its own rate, so a slow paint never stalls the simulation.
+ * <br>
+ * The target rate is defined by the period between two generations. The worker waits until the deadline of the
+ * next generation, if it falls behind by more than one period the deadlines are reset instead of catching up.
+ * <br>
+ * While the scheduler is running, the world is only changed by the worker thread. Other threads change it with
+ * edits and tasks, which the worker applies between two generations. If the scheduler is stopped, the edits and
+ * tasks are applied by the calling thread. The worker publishes a snapshot of the latest generation before it
+ * waits, so a reader never sees an old generation for longer than one period.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class SimulationScheduler {
+    private final World world;
+    private final RateMeter rate;
+    private final ConcurrentLinkedQueue<Runnable> tasks;
+    private volatile long period;
+    private volatile boolean unthrottled;
+    private volatile Thread worker;
+    
+    /**
+     * Creates a new stopped scheduler.
+     * @param world The world to evolve.
+     * @param delay The period between two generations in milliseconds.
+     */
+    public SimulationScheduler(final World world, final int delay) {
+        this.world = world;
+        this.rate = new RateMeter();
+        this.tasks = new ConcurrentLinkedQueue<>();
+        setDelay(delay);
+    }
+    
+    /**
+     * Set the period between two generations.
+     * @param delay The period in milliseconds.
+     */
+    public void setDelay(final int delay) {
+        period = delay * 1_000_000L;
+        LockSupport.unpark(worker);
+    }
+    
+    /**
+     * Evolve the generations as fast as possible or with the period of the delay.
+     * @param unthrottled True to ignore the delay.
+     */
+    public void setUnthrottled(final boolean unthrottled) {
+        this.unthrottled = unthrottled;
+        LockSupport.unpark(worker);
+    }
+    
+    /**
+     * Check if the scheduler evolves the generations as fast as possible.
+     * @return True if the delay is ignored.
+     */
+    public boolean isUnthrottled() {
+        return unthrottled;
+    }
+    
+    /**
+     * Check if the worker thread is running.
+     * @return True if the scheduler is running.
+     */
+    public boolean isRunning() {
+        return worker != null;
+    }
+    
+    /**
+     * The number of generations per second of the simulation.
+     * @return The generation rate, 0 if the scheduler is stopped.
+     */
+    public double getGenerationRate() {
+        return worker == null ? 0 : rate.getRate();
+    }
+    
+    /**
+     * Change the living state of a cell. The edit is queued in the world and applied before the next generation.
+     * @param x The position in the x axis.
+     * @param y The position in the y axis.
+     * @param isAlive True to set the cell alive, false to set it dead.
+     */
+    public void edit(final int x, final int y, final boolean isAlive) {
+        world.queueEdit(x, y, isAlive);
+        synchronized(this) {
+            if(worker == null) {
+                world.applyEdits();
+            }
+        }
+    }
+    
+    /**
+     * Run a task that changes the world. The task is run by the worker before the next generation, or by the
+     * calling thread if the scheduler is stopped.
+     * @param task The task.
+     */
+    public void invoke(final Runnable task) {
+        synchronized(this) {
+            if(worker == null) {
+                task.run();
+                world.publishSnapshot();
+                return;
+            }
+            tasks.add(task);
+        }
+        LockSupport.unpark(worker);
+    }
+    
+    /**
+     * Start a new worker thread. Nothing happens if the scheduler is already running.
+     */
+    public synchronized void start() {
+        if(worker != null) {
+            return;
+        }
+        rate.reset();
+        worker = new Thread(this::run, "simulation");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    /**
+     * Stop the worker thread. This method waits until the generation in progress is finished, so the world is
+     * not changed by the scheduler after this method returns. The edits and tasks that were not applied by the
+     * worker are applied by the calling thread.
+     */
+    public synchronized void stop() {
+        final Thread t = worker;
+        
+        if(t == null) {
+            return;
+        }
+        worker = null;
+        LockSupport.unpark(t);
+        try {
+            t.join();
+        } catch(InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        runTasks();
+        world.applyEdits();
+        world.publishSnapshot();
+    }
+    
+    /**
+     * Evolve generations until the worker is stopped. The tasks are run before each generation and whenever the
+     * worker wakes up while it waits for the deadline.
+     */
+    private void run() {
+        long last = System.nanoTime() - period;
+        
+        while(worker == Thread.currentThread()) {
+            runTasks();
+            if(!unthrottled) {
+                final long p = period;
+                final long now = System.nanoTime();
+                final long deadline = last + p;
+                
+                if(deadline - now > 0) {
+                    world.publishSnapshot();
+                    LockSupport.parkNanos(this, deadline - now);
+                    continue;
+                }
+                last = now - deadline > p ? now : deadline;     // fell behind, don't catch up
+            } else {
+                last = System.nanoTime();
+            }
+            world.startEngine();
+            rate.tick();
+        }
+    }
+    
+    /**
+     * Run the queued tasks.
+     */
+    private void runTasks() {
+        Runnable task;
+        
+        while((task = tasks.poll()) != null) {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ch.windmill.gameOfLife;
+
+import ch.windmill.gameOfLife.metrics.WorldMetrics;
+import java.util.Random;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * This class tests that the <code>gameOfLife.LifeEngine</code> doesnt allocate objects while evolving a
+ * generation. The allocated bytes of the test thread are read from the thread bean before and after a number of
+ * generations. The engine is warmed up first, so the bytes of the class loading are not counted.
+ * @author Cyrill Jauner
+ * @version 1.0.0
+ */
+public class LifeEngineTest {
+    private final static int SIZE = 300;
+    private final static int WARMUP = 2000;
+    private final static int GENERATIONS = 1000;
+    
+    private LifeEngine engine;
+    
+    /**
+     * Create the engine. The test is skipped if the virtual machine doesnt count the allocated bytes.
+     */
+    @Before
+    public void setUp() {
+        assumeTrue(WorldMetrics.getThreadAllocatedBytes() >= 0);
+        engine = new LifeEngine(RuleSet.CONWAY);
+    }
+    
+    /**
+     * Evolve generations of a bit grid and check that no bytes are allocated.
+     */
+    @Test
+    public void evolveGridAllocatesNothing() {
+        BitGrid current = new BitGrid(SIZE, SIZE), next = new BitGrid(SIZE, SIZE), g;
+        final Random ran = new Random(1);
+        
+        for(int x = 0; x < SIZE; x++) {
+            for(int y = 0; y < SIZE; y++) {
+                current.set(x, y, ran.nextDouble() < 0.3);
+            }
+        }
+        for(int i = 0; i < WARMUP; i++) {
+            engine.evolve(current, next);
+            g = current;
+            current = next;
+            next = g;
+        }
+        
+        final long overhead = measureOverhead();
+        final long before = WorldMetrics.getThreadAllocatedBytes();
+        for(int i = 0; i < GENERATIONS; i++) {
+            engine.evolve(current, next);
+            g = current;
+            current = next;
+            next = g;
+        }
+        final long allocated = WorldMetrics.getThreadAllocatedBytes() - before - overhead;
+        
+        assertEquals("Bytes allocated by " + GENERATIONS + " generations", 0, allocated);
+    }
+    
+    /**
+     * Evolve generations of a cell map and check that no bytes are allocated. The result arrays are reused.
+     */
+    @Test
+    public void evolveCellsAllocatesNothing() {
+        final Cell[][] map = new Cell[SIZE][SIZE];
+        final Random ran = new Random(1);
+        
+        for(int x = 0; x < SIZE; x++) {
+            for(int y = 0; y < SIZE; y++) {
+                map[x][y] = new Cell(ran.nextDouble() < 0.3, 1);
+            }
+        }
+        for(int i = 0; i < WARMUP; i++) {
+            apply(map, engine.evolve(map));
+        }
+        
+        final long overhead = measureOverhead();
+        final long before = WorldMetrics.getThreadAllocatedBytes();
+        for(int i = 0; i < GENERATIONS; i++) {
+            apply(map, engine.evolve(map));
+        }
+        final long allocated = WorldMetrics.getThreadAllocatedBytes() - before - overhead;
+        
+        assertEquals("Bytes allocated by " + GENERATIONS + " generations", 0, allocated);
+    }
+    
+    /**
+     * Write the next generation into the cells.
+     * @param map The cells.
+     * @param next The next generation.
+     */
+    private static void apply(final Cell[][] map, final boolean[][] next) {
+        for(int x = 0; x < map.length; x++) {
+            for(int y = 0; y < map[x].length; y++) {
+                map[x][y].setAlive(next[x][y]);
+            }
+        }
+    }
+    
+    /**
+     * Measure the bytes that are allocated by reading the allocated bytes twice.
+     * @return The bytes of one measurement.
+     */
+    private static long measureOverhead() {
+        final long before = WorldMetrics.getThreadAllocatedBytes();
+        return WorldMetrics.getThreadAllocatedBytes() - before;
+    }
+}